@@ -1,8 +1,18 @@
 package com.trading.bot;
 
+import com.trading.replay.ReplayMode;
+import com.trading.settings.AppConfig;
+import com.trading.simulation.FakeTwsServer;
+import com.trading.simulation.SimulatedClient;
+import com.trading.simulation.SyntheticMarket;
+import com.trading.time.VirtualClock;
+import com.trading.time.VirtualTimeScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.time.ZoneId;
+
 public class BotLauncher {
 
     private static final Logger log = LoggerFactory.getLogger(BotLauncher.class);
@@ -10,14 +20,26 @@ public class BotLauncher {
     public static void main(String[] args) throws Exception {
         boolean liveMode;
         if (args.length == 0) {
-            log.error("Please specify mode: LIVE or SIM");
+            log.error("Please specify mode: LIVE, SIM, SYNTH, FAKETWS [journalDir] [max|<speed>] or REPLAY <journalDir> [max|<speed>]");
             return;
         }
         switch (args[0].toUpperCase()) {
             case "LIVE" -> liveMode = true;
             case "SIM" -> liveMode = false;
+            case "REPLAY" -> {
+                replay(args);
+                return;
+            }
+            case "SYNTH" -> {
+                synthetic();
+                return;
+            }
+            case "FAKETWS" -> {
+                fakeTws(args);
+                return;
+            }
             default -> {
-                log.error("Invalid mode. Use LIVE or SIM.");
+                log.error("Invalid mode. Use LIVE, SIM, SYNTH, FAKETWS or REPLAY.");
                 return;
             }
         }
@@ -35,4 +57,65 @@ public class BotLauncher {
             Thread.currentThread().interrupt();
         }
     }
+
+    private static void synthetic() throws Exception {
+        AppConfig.SimulationConfig config = AppConfig.load().simulation();
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler(new VirtualClock(ZoneId.systemDefault()));
+        SyntheticMarket market = new SyntheticMarket(config);
+
+        ScalperBot bot = new ScalperBot(false, scheduler, (wrapper, signal) -> new SimulatedClient(wrapper, signal, market));
+        Runtime.getRuntime().addShutdownHook(new Thread(market::stop));
+        try {
+            bot.simulate(market);
+        } finally {
+            bot.stop();
+        }
+    }
+
+    // Serves the socket API on simulation.serverPort until Ctrl+C; point a SIM bot at it.
+    private static void fakeTws(String[] args) throws Exception {
+        Path journal = null;
+        double speed = 1.0;
+        int next = 1;
+        if (args.length > next && !isSpeed(args[next])) journal = Path.of(args[next++]);
+        if (args.length > next) speed = "max".equalsIgnoreCase(args[next]) ? 0 : Double.parseDouble(args[next]);
+
+        FakeTwsServer server = new FakeTwsServer(AppConfig.load().simulation(), journal, speed);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        server.awaitTermination();
+    }
+
+    private static boolean isSpeed(String arg) {
+        if ("max".equalsIgnoreCase(arg)) return true;
+        try {
+            Double.parseDouble(arg);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void replay(String[] args) throws Exception {
+        if (args.length < 2) {
+            log.error("Usage: REPLAY <journalDir> [max|<speed>]");
+            return;
+        }
+        String speedArg = args.length > 2 ? args[2] : "max";
+        ReplayMode mode;
+        double speed = 1.0;
+        if ("max".equalsIgnoreCase(speedArg)) {
+            mode = ReplayMode.AS_FAST_AS_POSSIBLE;
+        } else {
+            speed = Double.parseDouble(speedArg);
+            mode = speed == 1.0 ? ReplayMode.WALL_CLOCK : ReplayMode.SCALED;
+        }
+
+        ScalperBot bot = new ScalperBot(false, new VirtualTimeScheduler(new VirtualClock(ZoneId.systemDefault())));
+        try {
+            bot.replay(Path.of(args[1]), mode, speed);
+        } finally {
+            bot.stop();
+        }
+    }
 }
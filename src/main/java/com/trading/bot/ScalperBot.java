@@ -1,9 +1,18 @@
 package com.trading.bot;
 
+import com.ib.client.EClientSocket;
+import com.ib.client.EReaderSignal;
+import com.ib.client.EWrapper;
 import com.trading.ib.LockManager;
+import com.trading.ib.SymbolRegistry;
 import com.trading.services.*;
 import com.trading.datafeed.BarManager;
 import com.trading.ib.IBConnector;
+import com.trading.journal.MarketDataRecorder;
+import com.trading.replay.JournalReader;
+import com.trading.replay.ReplayEngine;
+import com.trading.replay.ReplayMode;
+import com.trading.replay.ReplayStats;
 import com.trading.indicators.IndicatorManager;
 import com.trading.orders.ExecutionHandler;
 import com.trading.orders.TradeExecutor;
@@ -11,12 +20,21 @@ import com.trading.scanner.IBKRScanner;
 import com.trading.settings.AppConfig;
 import com.trading.settings.ConfigThreshold;
 import com.trading.signals.SignalManager;
+import com.trading.store.BarStore;
 import com.trading.strategy.StrategyManager;
 import com.trading.console.Dashboard;
+import com.trading.simulation.SimulationStats;
+import com.trading.simulation.SyntheticMarket;
+import com.trading.time.RealTimeScheduler;
+import com.trading.time.Scheduler;
+import com.trading.time.SystemClock;
+import com.trading.time.VirtualTimeScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 
 public class ScalperBot {
 
@@ -25,18 +43,50 @@ public class ScalperBot {
     private final ConnectionService connectionService;
     private final SchedulerService schedulerService;
     private final TradeService tradeService;
+    private final IBConnector ib;
+    private final ScannerService scannerService;
+    private final BarManager barManager;
+    private final Scheduler scheduler;
     private final AtomicBoolean stopped = new AtomicBoolean(false);
 
     public ScalperBot(boolean liveMode) throws Exception {
+        this(liveMode, new RealTimeScheduler(SystemClock.INSTANCE, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public ScalperBot(boolean liveMode, Scheduler scheduler) throws Exception {
+        this(liveMode, scheduler, EClientSocket::new);
+    }
+
+    public ScalperBot(boolean liveMode, Scheduler scheduler,
+                      BiFunction<EWrapper, EReaderSignal, EClientSocket> clientFactory) throws Exception {
+        this.scheduler = scheduler;
         AppConfig appConfig = AppConfig.load();
         AppConfig.ScannerConfig sc = appConfig.scanner();
         AppConfig.TradingConfig tc = appConfig.trading();
 
-        IBConnector ib = new IBConnector();
+        AppConfig.MarketDataConfig mc = appConfig.marketData();
+        if (mc == null) {
+            log.warn("application.yaml has no marketData section; using the defaults.");
+            mc = AppConfig.MarketDataConfig.defaults();
+        }
+
+        SymbolRegistry symbolRegistry = new SymbolRegistry(mc.maxSymbols());
+        IBConnector ib = new IBConnector(mc, symbolRegistry, scheduler.clock(), clientFactory);
+        this.ib = ib;
+        AppConfig.RecorderConfig rc = appConfig.recorder();
+        if (rc != null && rc.enabled()) {
+            ib.setRecorder(new MarketDataRecorder(Path.of(rc.directory()), rc.segmentSizeMb(), rc.flushIntervalMs(),
+                    symbolRegistry.capacity()));
+        }
         ConfigThreshold configThreshold = new ConfigThreshold();
-        LockManager lockManager = new LockManager();
-        BarManager barManager = new BarManager(ib, lockManager);
-        IndicatorManager indicatorManager = new IndicatorManager(configThreshold, ib, lockManager);
+        LockManager lockManager = new LockManager(symbolRegistry.capacity());
+        this.barManager = new BarManager(ib, lockManager, scheduler, mc);
+        AppConfig.BarStoreConfig bc = appConfig.barStore();
+        if (bc != null && bc.enabled()) {
+            barManager.setBarStore(new BarStore(Path.of(bc.directory()), bc.activityBarsPerFile(), scheduler.clock(),
+                    symbolRegistry.capacity()));
+        }
+        IndicatorManager indicatorManager = new IndicatorManager(configThreshold, ib, lockManager, barManager);
         SignalManager signalManager = new SignalManager(indicatorManager, configThreshold);
         ExecutionHandler executionHandler = new ExecutionHandler(ib, lockManager);
         TradeExecutor tradeExecutor = new TradeExecutor(ib, executionHandler, lockManager);
@@ -48,13 +98,15 @@ public class ScalperBot {
                 .setMinVolumeFilter(sc.minVolume())
                 .setScanLimit(sc.scanLimit());
         BarPipelineService barPipelineService = new BarPipelineService(barManager, indicatorManager);
-        ScannerService scannerService = new ScannerService(ib, strategyManager, scanner, tradeExecutor, executionHandler,
+        this.scannerService = new ScannerService(ib, strategyManager, scanner, tradeExecutor, executionHandler,
                 barPipelineService, sc.timeoutMs());
-        StrategyService strategyService = new StrategyService(strategyManager, scannerService);
+        StrategyService strategyService = new StrategyService(strategyManager, scannerService, scheduler.clock());
         Dashboard dashboard = new Dashboard(ib);
         this.connectionService = new ConnectionService(ib, liveMode, appConfig.connection());
-        this.schedulerService = new SchedulerService(scannerService, strategyService, dashboard, appConfig.scheduler());
-        this.tradeService = new TradeService(executionHandler, tc.tradeLogPath());
+        this.schedulerService = new SchedulerService(scannerService, strategyService, dashboard, appConfig.scheduler(), scheduler);
+        this.tradeService = new TradeService(executionHandler, tc.tradeLogPath(), scheduler.clock());
+        log.info("Off-heap state store: {} columns, {} MB for {} symbols.", ib.getStore().columns().size(),
+                ib.getStore().bytesAllocated() >> 20, symbolRegistry.capacity());
     }
 
     public void start() {
@@ -63,11 +115,45 @@ public class ScalperBot {
         log.info("ScalperBot started. Scanning, filtering, and applying strategy dynamically...");
     }
 
+    public ReplayStats replay(Path journalDirectory, ReplayMode mode, double speed) throws Exception {
+        ib.setRecorder(null);
+        detachBarStore();
+        ib.startOffline();
+        schedulerService.startEvaluation();
+        try (JournalReader reader = JournalReader.open(journalDirectory)) {
+            log.info("Replaying {} journal segment(s) from {} ({})", reader.getSegments().size(), journalDirectory, mode);
+            VirtualTimeScheduler eventTime = scheduler instanceof VirtualTimeScheduler v ? v : null;
+            return new ReplayEngine(ib, scannerService, eventTime).run(reader, mode, speed);
+        }
+    }
+
+    public SimulationStats simulate(SyntheticMarket market) {
+        ib.setRecorder(null);
+        detachBarStore();
+        ib.startOffline();
+        if (!(scheduler instanceof VirtualTimeScheduler eventTime))
+            throw new IllegalStateException("The synthetic market needs a virtual-time scheduler");
+        schedulerService.startEvaluation();
+        return market.run(ib, scannerService, eventTime);
+    }
+
     public void stop() {
         if (!stopped.compareAndSet(false, true)) return;
         log.info("Stopping ScalperBot...");
         schedulerService.stop();
         connectionService.disconnect();
         tradeService.removeCustomListener("logger");
+        detachBarStore();
+        BarManager.Reconciliation r = barManager.getReconciliation();
+        if (r.matched() + r.mismatched() + r.unmatched() > 0)
+            log.info("IB 5s bars vs tick-built bars: {} matched, {} differed, {} had no tick-built bar.",
+                    r.matched(), r.mismatched(), r.unmatched());
+    }
+
+    // Replays and simulations run on their own clock and must not write into a live session's bar files.
+    private void detachBarStore() {
+        BarStore store = barManager.getBarStore();
+        barManager.setBarStore(null);
+        if (store != null) store.close();
     }
 }
@@ -18,6 +18,7 @@ public class Dashboard {
     private final Map<String, Integer> lastPositions = new ConcurrentHashMap<>();
     private final Map<String, Double> lastPrices = new ConcurrentHashMap<>();
     private volatile double accountBalance = 0.0;
+    private final double[] recentPrices = new double[5];
 
     public Dashboard(IBConnector ib) {
         this.ib = ib;
@@ -44,9 +45,9 @@ public class Dashboard {
                 int position = data.getPosition();
                 double entry = data.getEntryPrice();
                 double realized = data.getRealizedPnl();
-                Deque<Double> priceHistory = data.getPricesSnapshot();
+                int recent = data.copyRecentPrices(recentPrices);
 
-                double unrealized = position * (price - entry);
+                double unrealized = data.getUnrealizedPnl(price);
                 double pnl = unrealized + realized;
 
                 String unrealizedColor = unrealized > 0 ? GREEN : (unrealized < 0 ? RED : YELLOW);
@@ -68,8 +69,7 @@ public class Dashboard {
                 lastPositions.put(symbol, position);
 
                 StringBuilder lastPricesStr = new StringBuilder();
-                priceHistory.stream().skip(Math.max(0, priceHistory.size() - 5))
-                        .forEach(p -> lastPricesStr.append(String.format("%.2f ", p)));
+                for (int i = 0; i < recent; i++) lastPricesStr.append(String.format("%.2f ", recentPrices[i]));
 
                 System.out.printf(
                         "%-6s | %s%-7.2f%s | %-7.2f | %s%-7d%s | %s%-9.2f%s | %s%-9.2f%s | %s%-9.2f%s | %s%n",
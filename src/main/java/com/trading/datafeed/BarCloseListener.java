@@ -0,0 +1,6 @@
+package com.trading.datafeed;
+
+public interface BarCloseListener {
+    // The view is reused for the next close of the same symbol and timeframe; read it before returning.
+    void onBarClose(int symbolId, BarView bar);
+}
@@ -0,0 +1,68 @@
+package com.trading.datafeed;
+
+import java.util.Arrays;
+
+// Hashed timing wheel of open-bar deadlines. An entry packs the bar's Timeframe slot and its end second; it is
+// hashed by the tick its deadline (end + grace) falls on, and entries more than a rotation ahead wait for a later pass.
+final class BarCloseWheel {
+
+    private static final int WHEEL_SIZE = 1024;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final long tickMs;
+    private final long graceMs;
+    private final long[][] buckets = new long[WHEEL_SIZE][];
+    private final int[] sizes = new int[WHEEL_SIZE];
+    private long lastTick = Long.MIN_VALUE;
+    private long[] due = new long[256];
+
+    BarCloseWheel(long tickMs, long graceMs) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs must be positive");
+        this.tickMs = tickMs;
+        this.graceMs = graceMs;
+        for (int i = 0; i < WHEEL_SIZE; i++) buckets[i] = new long[16];
+    }
+
+    synchronized void schedule(int slot, long endSeconds) {
+        long tick = Math.max(Math.floorDiv(deadline(endSeconds) + tickMs - 1, tickMs), lastTick + 1);
+        int b = (int) (tick & MASK);
+        long[] bucket = buckets[b];
+        if (sizes[b] == bucket.length) buckets[b] = bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        bucket[sizes[b]++] = (long) slot << 32 | endSeconds;
+    }
+
+    // Moves every entry whose deadline has passed into due(), sorted by slot so each symbol's timeframes are adjacent
+    // and lowest first. Returns how many there are. Only the timer thread calls this.
+    synchronized int drainDue(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMs);
+        if (nowTick <= lastTick) return 0;
+        int count = 0;
+        for (long t = Math.max(lastTick + 1, nowTick - MASK); t <= nowTick; t++) {
+            int b = (int) (t & MASK);
+            long[] bucket = buckets[b];
+            int kept = 0;
+            for (int i = 0; i < sizes[b]; i++) {
+                long entry = bucket[i];
+                if (deadline(endSeconds(entry)) <= nowMillis) {
+                    if (count == due.length) due = Arrays.copyOf(due, count * 2);
+                    due[count++] = entry;
+                } else {
+                    bucket[kept++] = entry;
+                }
+            }
+            sizes[b] = kept;
+        }
+        lastTick = nowTick;
+        Arrays.sort(due, 0, count);
+        return count;
+    }
+
+    long[] due() { return due; }
+
+    static int slot(long entry) { return (int) (entry >>> 32); }
+    static long endSeconds(long entry) { return entry & 0xFFFFFFFFL; }
+
+    private long deadline(long endSeconds) {
+        return endSeconds * 1000 + graceMs;
+    }
+}
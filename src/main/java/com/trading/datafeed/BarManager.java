@@ -3,110 +3,359 @@ package com.trading.datafeed;
 import com.trading.ib.IBConnector;
 import com.trading.ib.LockManager;
 import com.trading.ib.RealTimeBarListener;
+import com.trading.ib.SymbolRegistry;
+import com.trading.ib.TradeListener;
+import com.trading.settings.AppConfig;
+import com.trading.store.BarRange;
+import com.trading.store.BarStore;
+import com.trading.store.DoubleColumn;
+import com.trading.store.LongColumn;
+import com.trading.store.OffHeapStore;
+import com.trading.time.Clock;
+import com.trading.time.Scheduler;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class BarManager implements RealTimeBarListener {
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
 
-    private final Map<Timeframe, Map<String, OHLCV>> currentOpenBars = new ConcurrentHashMap<>();
-    private final Map<Timeframe, Map<String, ConcurrentLinkedDeque<OHLCV>>> ohlcvData = new ConcurrentHashMap<>();
-    private final Map<Timeframe, List<BiConsumer<String, OHLCV>>> barCloseListeners = new ConcurrentHashMap<>();
+public class BarManager implements RealTimeBarListener, TradeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BarManager.class);
+
+    private static final long NO_BAR = -1L;
+    private static final int RECONCILE_DEPTH = 4;
+    private static final Timeframe[] TIMEFRAMES = Timeframe.values();
+    private static final Timeframe[] ACTIVITY = Timeframe.getActivityBars().toArray(Timeframe[]::new);
+
+    // Open-bar accumulators, indexed by Timeframe.slot(symbolId); barStart is NO_BAR while no bar is open
+    private final LongColumn barStart;
+    private final DoubleColumn barOpen;
+    private final DoubleColumn barHigh;
+    private final DoubleColumn barLow;
+    private final DoubleColumn barClose;
+    private final LongColumn barVolume;
+    // Trades, shares or dollars folded into an open activity bar so far
+    private final DoubleColumn barActivity;
+    // End second of the last bar closed in each slot; bars for intervals before it arrived too late and are dropped
+    private final LongColumn closedUntil;
+    // Indexed by Timeframe.ordinal(); TICK has no series
+    private final BarSeries[] series = new BarSeries[Timeframe.COUNT];
+    private final BarView[] views;
+    // The one pipeline fed by each Timeframe.slot(symbolId), so a close reaches only its own symbol
+    private final AtomicReferenceArray<BarCloseListener> barCloseListeners;
 
     private final LockManager lockManager;
+    private final SymbolRegistry symbolRegistry;
+    private volatile BarStore barStore;
+    private final Clock clock;
+    private final BarCloseWheel wheel;
+    private final BarSource source;
+    // The source's base timeframe and everything above it
+    private final Timeframe[] built;
+    // Every timeframe this manager can close bars for: built, then the activity bars
+    private final Timeframe[] stored;
+    // Trades, shares or dollars that close a bar, indexed by Timeframe.ordinal(); 0 for time bars
+    private final long[] activitySizes = new long[Timeframe.COUNT];
+
+    public record Reconciliation(long matched, long mismatched, long unmatched) {}
 
-    public BarManager(IBConnector ib, LockManager lockManager) {
+    private final AtomicLong reconciledBars = new AtomicLong();
+    private final AtomicLong mismatchedBars = new AtomicLong();
+    private final AtomicLong unmatchedBars = new AtomicLong();
+
+    // Open bars are closed by a timer at their boundary plus the source's grace period, without waiting for the next bar.
+    public BarManager(IBConnector ib, LockManager lockManager, Scheduler scheduler, AppConfig.MarketDataConfig config) {
         ib.addRealTimeBarListener(this);
+        ib.addTradeListener(this);
         this.lockManager = lockManager;
-        for (Timeframe tf : Timeframe.getHierarchy()) {
-            currentOpenBars.put(tf, new ConcurrentHashMap<>());
-            ohlcvData.put(tf, new ConcurrentHashMap<>());
-            barCloseListeners.put(tf, new CopyOnWriteArrayList<>());
+        this.symbolRegistry = ib.getSymbolRegistry();
+        this.clock = scheduler.clock();
+        this.source = config.barSource();
+        this.built = Stream.concat(Stream.of(source.base()), Timeframe.hierarchyFrom(source.base()).stream())
+                .toArray(Timeframe[]::new);
+        this.stored = Stream.concat(Stream.of(built), Stream.of(ACTIVITY)).toArray(Timeframe[]::new);
+        activitySizes[Timeframe.TRADES.ordinal()] = sizeOr(config.tradesPerBar(), Timeframe.TRADES);
+        activitySizes[Timeframe.SHARES.ordinal()] = sizeOr(config.sharesPerBar(), Timeframe.SHARES);
+        activitySizes[Timeframe.DOLLARS.ordinal()] = sizeOr(config.dollarsPerBar(), Timeframe.DOLLARS);
+        this.wheel = new BarCloseWheel(config.barTimerTickMs(),
+                source == BarSource.TICKS ? config.tickBarGraceMs() : config.barCloseGraceMs());
+        OffHeapStore store = ib.getStore();
+        int slots = store.timeframeSlots();
+        this.barStart = store.longs("bar.start", slots, NO_BAR);
+        this.barOpen = store.doubles("bar.open", slots, 0.0);
+        this.barHigh = store.doubles("bar.high", slots, 0.0);
+        this.barLow = store.doubles("bar.low", slots, 0.0);
+        this.barClose = store.doubles("bar.close", slots, 0.0);
+        this.barVolume = store.longs("bar.volume", slots, 0L);
+        this.barActivity = store.doubles("bar.activity", slots, 0.0);
+        this.closedUntil = store.longs("bar.closedUntil", slots, 0L);
+        this.views = new BarView[slots];
+        this.barCloseListeners = new AtomicReferenceArray<>(slots);
+        for (Timeframe tf : Timeframe.getBarTimeframes()) {
+            BarSeries s = new BarSeries(store, tf);
+            series[tf.ordinal()] = s;
+            for (int id = 0; id < store.symbolCapacity(); id++) views[tf.slot(id)] = new BarView(s, id);
         }
+        scheduler.scheduleAtFixedRate(this::closeDueBars, config.barTimerTickMs(), config.barTimerTickMs());
+    }
+
+    private static long sizeOr(long configured, Timeframe tf) {
+        if (configured < 0) throw new IllegalArgumentException(tf + " bar size must not be negative: " + configured);
+        return configured == 0 ? tf.getSize() : configured;
     }
 
-    public void addBarCloseListener(Timeframe tf, BiConsumer<String, OHLCV> listener) {
-        barCloseListeners.get(tf).add(listener);
+    // Replaces any listener already bound to this symbol and timeframe; clearBars unbinds them all.
+    public void setBarCloseListener(int symbolId, Timeframe tf, BarCloseListener listener) {
+        barCloseListeners.set(tf.slot(symbolId), listener);
     }
 
+    // Set before symbols are registered; null stops persisting closed bars.
+    public void setBarStore(BarStore barStore) {
+        this.barStore = barStore;
+    }
+
+    public BarStore getBarStore() {
+        return barStore;
+    }
+
+    // Binds the symbol's stored bars for this session and loads the newest of them into its series, so indicators are
+    // rebuilt from them when a strategy is applied. Bars from intervals already stored are dropped as late; clearBars
+    // releases the files.
+    public void openStoredBars(int symbolId) {
+        BarStore store = barStore;
+        String symbol = symbolRegistry.symbolOf(symbolId);
+        if (store == null || symbol == null) return;
+        lockManager.lock(symbolId);
+        try {
+            store.open(symbolId, symbol, stored);
+            for (Timeframe tf : stored) {
+                BarRange bars = store.last(symbolId, tf, tf.getMaxBars());
+                if (bars.isEmpty()) continue;
+                BarSeries s = series[tf.ordinal()];
+                s.clear(symbolId);
+                for (int i = 0; i < bars.size(); i++) {
+                    s.append(symbolId, bars.startTime(i), bars.endTime(i), bars.open(i), bars.high(i), bars.low(i),
+                            bars.close(i), bars.volume(i));
+                }
+                closedUntil.set(tf.slot(symbolId), bars.endTime(bars.size() - 1));
+            }
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
+
+    public BarSeries getSeries(Timeframe tf) {
+        return series[tf.ordinal()];
+    }
+
+    // ===== OPEN BAR (the bar still forming for a slot; read under the symbol lock) =====
+    public boolean isBarOpen(int symbolId, Timeframe tf) { return barStart.get(tf.slot(symbolId)) != NO_BAR; }
+    public double openBarHigh(int symbolId, Timeframe tf) { return barHigh.get(tf.slot(symbolId)); }
+    public double openBarLow(int symbolId, Timeframe tf) { return barLow.get(tf.slot(symbolId)); }
+    public double openBarClose(int symbolId, Timeframe tf) { return barClose.get(tf.slot(symbolId)); }
+    public long openBarVolume(int symbolId, Timeframe tf) { return barVolume.get(tf.slot(symbolId)); }
+
     private long alignTimestamp(long timestamp, int intervalSeconds) {
         return timestamp - (timestamp % intervalSeconds);
     }
 
+    // Activity bars are built from prints whichever source the time bars come from, but only while a listener is bound
+    // to them, i.e. while the symbol's strategy reads them. An unbound one drops its open bar and starts afresh when
+    // it is bound again.
     @Override
-    public void onRealTimeBar(String symbol, long timestamp, double open, double high, double low, double close, long volume) {
-        if (symbol == null) return;
+    public void onTrade(int symbolId, double price, long size, long timestampMillis) {
+        long timestamp = timestampMillis / 1000;
+        lockManager.lock(symbolId);
+        try {
+            if (source == BarSource.TICKS) aggregate(symbolId, timestamp, price, price, price, price, size);
+            for (Timeframe tf : ACTIVITY) {
+                int slot = tf.slot(symbolId);
+                if (barCloseListeners.get(slot) != null) accumulateActivity(symbolId, tf, timestamp, price, size);
+                else barStart.set(slot, NO_BAR);
+            }
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
 
-        lockManager.lock(symbol);
+    @Override
+    public void onRealTimeBar(int symbolId, String symbol, long timestamp, double open, double high, double low, double close, long volume) {
+        if (source == BarSource.TICKS) {
+            reconcile(symbolId, symbol, timestamp, close, volume);
+            return;
+        }
+        lockManager.lock(symbolId);
+        try {
+            aggregate(symbolId, timestamp, open, high, low, close, volume);
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
+
+    // Folds one trade or source bar into every time bar it builds, so each level sums the raw input exactly once.
+    // Caller holds the symbol lock.
+    private void aggregate(int symbolId, long timestamp, double open, double high, double low, double close, long volume) {
+        if (isLate(symbolId, timestamp)) return;
+        for (Timeframe tf : built) {
+            accumulate(symbolId, tf, alignTimestamp(timestamp, tf.getSeconds()), open, high, low, close, volume);
+        }
+        forceCloseBars(symbolId, timestamp);
+    }
+
+    private boolean isLate(int symbolId, long timestamp) {
+        for (Timeframe tf : built) {
+            if (alignTimestamp(timestamp, tf.getSeconds()) < closedUntil.get(tf.slot(symbolId))) return true;
+        }
+        return false;
+    }
+
+    // IB's 5-second bar against the SEC5 bar built from ticks for the same interval.
+    private void reconcile(int symbolId, String symbol, long startTime, double close, long volume) {
+        lockManager.lock(symbolId);
         try {
-            OHLCV lowerBar = processTimeframe(symbol, timestamp, open, high, low, close, volume);
-
-            for (Timeframe higherTf : Timeframe.hierarchyFrom(Timeframe.SEC5)) {
-                long alignedStart = alignTimestamp(lowerBar.startTime, higherTf.getSeconds());
-                OHLCV higherBar = currentOpenBars.get(higherTf).get(symbol);
-                if (higherBar == null || higherBar.startTime != alignedStart) {
-                    if (higherBar != null) closeBar(symbol, higherTf, higherBar);
-                    higherBar = new OHLCV(lowerBar.open, lowerBar.high, lowerBar.low, lowerBar.close, lowerBar.volume, alignedStart);
-                    currentOpenBars.get(higherTf).put(symbol, higherBar);
-                } else
-                    higherBar.updateFrom(lowerBar);
-                lowerBar = higherBar;
+            int slot = Timeframe.SEC5.slot(symbolId);
+            if (barStart.get(slot) == startTime) {
+                // IB's bar can land before the timer closes ours
+                compare(symbol, startTime, close, volume, barClose.get(slot), barVolume.get(slot));
+                return;
+            }
+            BarSeries sec5 = series[Timeframe.SEC5.ordinal()];
+            int depth = Math.min(sec5.size(symbolId), RECONCILE_DEPTH);
+            for (int ago = 0; ago < depth; ago++) {
+                if (sec5.startTime(symbolId, ago) != startTime) continue;
+                compare(symbol, startTime, close, volume, sec5.close(symbolId, ago), sec5.volume(symbolId, ago));
+                return;
             }
-            forceCloseBars(symbol, timestamp);
+            if (volume > 0) unmatchedBars.incrementAndGet();
         } finally {
-            lockManager.unlock(symbol);
+            lockManager.unlock(symbolId);
+        }
+    }
+
+    private void compare(String symbol, long startTime, double close, long volume, double builtClose, long builtVolume) {
+        if (builtVolume == volume && Math.abs(builtClose - close) < 1e-9) {
+            reconciledBars.incrementAndGet();
+        } else {
+            mismatchedBars.incrementAndGet();
+            log.debug("{} 5s bar at {} differs: IB close {} volume {}, ticks close {} volume {}",
+                    symbol, startTime, close, volume, builtClose, builtVolume);
         }
     }
 
-    private OHLCV processTimeframe(String symbol, long timestamp, double open, double high, double low, double close, long volume) {
-        Map<String, OHLCV> openBars = currentOpenBars.get(Timeframe.SEC5);
-        long alignedStart = alignTimestamp(timestamp, Timeframe.SEC5.getSeconds());
+    public Reconciliation getReconciliation() {
+        return new Reconciliation(reconciledBars.get(), mismatchedBars.get(), unmatchedBars.get());
+    }
 
-        OHLCV bar = openBars.get(symbol);
-        if (bar == null || bar.startTime != alignedStart) {
-            if (bar != null) closeBar(symbol, Timeframe.SEC5, bar);
+    // Folds a bar into the open bar for tf, first closing the open one if the new bar starts a later interval.
+    private void accumulate(int symbolId, Timeframe tf, long alignedStart, double open, double high, double low, double close, long volume) {
+        int slot = tf.slot(symbolId);
+        long start = barStart.get(slot);
+        if (start != alignedStart) {
+            if (start != NO_BAR) closeBar(symbolId, tf, start + tf.getSeconds());
+            barOpen.set(slot, open);
+            barHigh.set(slot, high);
+            barLow.set(slot, low);
+            barClose.set(slot, close);
+            barVolume.set(slot, volume);
+            barStart.set(slot, alignedStart);
+            wheel.schedule(slot, alignedStart + tf.getSeconds());
+        } else {
+            barHigh.set(slot, Math.max(barHigh.get(slot), high));
+            barLow.set(slot, Math.min(barLow.get(slot), low));
+            barClose.set(slot, close);
+            barVolume.set(slot, barVolume.get(slot) + volume);
+        }
+    }
 
-            bar = new OHLCV(open, high, low, close, volume, alignedStart);
-            openBars.put(symbol, bar);
-        } else
-            bar.updateFrom(new OHLCV(open, high, low, close, volume, alignedStart));
+    // An activity bar opens on the first print after the last one closed, and closes on the print that takes it to the
+    // configured size. A print is never split, so a block trade can overshoot the size.
+    private void accumulateActivity(int symbolId, Timeframe tf, long timestamp, double price, long size) {
+        int slot = tf.slot(symbolId);
+        if (barStart.get(slot) == NO_BAR) {
+            barOpen.set(slot, price);
+            barHigh.set(slot, price);
+            barLow.set(slot, price);
+            barVolume.set(slot, 0L);
+            barActivity.set(slot, 0.0);
+            barStart.set(slot, timestamp);
+        } else {
+            barHigh.set(slot, Math.max(barHigh.get(slot), price));
+            barLow.set(slot, Math.min(barLow.get(slot), price));
+        }
+        barClose.set(slot, price);
+        barVolume.set(slot, barVolume.get(slot) + size);
+        double activity = barActivity.get(slot) + tf.getType().activity(price, size);
+        barActivity.set(slot, activity);
+        if (activity >= activitySizes[tf.ordinal()]) closeBar(symbolId, tf, timestamp);
+    }
 
-        return bar;
+    private void forceCloseBars(int symbolId, long timestamp) {
+        for (Timeframe tf : built) {
+            int slot = tf.slot(symbolId);
+            long start = barStart.get(slot);
+            if (start != NO_BAR && timestamp >= start + tf.getSeconds()) closeBar(symbolId, tf, start + tf.getSeconds());
+        }
     }
 
-    private void forceCloseBars(String symbol, long timestamp) {
-        for (Timeframe tf : Timeframe.getHierarchy()) {
-            OHLCV bar = currentOpenBars.get(tf).get(symbol);
-            if (bar != null && timestamp >= bar.startTime + tf.getSeconds()) {
-                closeBar(symbol, tf, bar);
-                currentOpenBars.get(tf).remove(symbol);
+    // Timer task: closes every bar whose boundary and grace have passed, taking each symbol's lock once per batch.
+    private void closeDueBars() {
+        int count = wheel.drainDue(clock.currentTimeMillis());
+        long[] due = wheel.due();
+        int i = 0;
+        while (i < count) {
+            int symbolId = BarCloseWheel.slot(due[i]) / Timeframe.COUNT;
+            lockManager.lock(symbolId);
+            try {
+                for (; i < count && BarCloseWheel.slot(due[i]) / Timeframe.COUNT == symbolId; i++) {
+                    int slot = BarCloseWheel.slot(due[i]);
+                    Timeframe tf = TIMEFRAMES[slot % Timeframe.COUNT];
+                    long start = barStart.get(slot);
+                    long end = BarCloseWheel.endSeconds(due[i]);
+                    if (start != NO_BAR && start + tf.getSeconds() == end) closeBar(symbolId, tf, end);
+                }
+            } finally {
+                lockManager.unlock(symbolId);
             }
         }
     }
 
-    private void closeBar(String symbol, Timeframe tf, OHLCV bar) {
-        bar.close(tf.getSeconds());
-        ConcurrentLinkedDeque<OHLCV> bars = ohlcvData.get(tf).computeIfAbsent(symbol, k -> new ConcurrentLinkedDeque<>());
-        bars.addLast(bar.copy());
-        if (bars.size() > tf.getMaxBars()) bars.removeFirst();
-        OHLCV snapshot = bar.copy();
-        for (var listener : barCloseListeners.get(tf)) {
-            listener.accept(symbol, snapshot);
+    // Leaves the slot with no open bar. A failing listener is logged so it cannot stall the timer or the consumer.
+    private void closeBar(int symbolId, Timeframe tf, long end) {
+        int slot = tf.slot(symbolId);
+        long start = barStart.get(slot);
+        closedUntil.set(slot, end);
+        series[tf.ordinal()].append(symbolId, start, end, barOpen.get(slot), barHigh.get(slot),
+                barLow.get(slot), barClose.get(slot), barVolume.get(slot));
+        BarStore store = barStore;
+        if (store != null) store.append(symbolId, tf, start, end, barOpen.get(slot), barHigh.get(slot),
+                barLow.get(slot), barClose.get(slot), barVolume.get(slot));
+        barStart.set(slot, NO_BAR);
+        BarCloseListener listener = barCloseListeners.get(slot);
+        if (listener == null) return;
+        try {
+            listener.onBarClose(symbolId, views[slot]);
+        } catch (RuntimeException e) {
+            log.error("Bar close listener failed for symbol {} {}", symbolId, tf, e);
         }
     }
 
-    public void clearOHLCVData(String symbol) {
-        lockManager.lock(symbol);
+    public void clearBars(int symbolId) {
+        lockManager.lock(symbolId);
         try {
-            for (Timeframe tf : Timeframe.getHierarchy()) {
-                currentOpenBars.get(tf).remove(symbol);
-                ohlcvData.get(tf).remove(symbol);
+            for (Timeframe tf : Timeframe.getBarTimeframes()) {
+                int slot = tf.slot(symbolId);
+                barStart.set(slot, NO_BAR);
+                closedUntil.set(slot, 0L);
+                series[tf.ordinal()].clear(symbolId);
+                barCloseListeners.set(slot, null);
             }
+            BarStore store = barStore;
+            if (store != null) store.close(symbolId);
         } finally {
-            lockManager.unlock(symbol);
+            lockManager.unlock(symbolId);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.trading.datafeed;
+
+import com.trading.store.DoubleColumn;
+import com.trading.store.LongColumn;
+import com.trading.store.OffHeapStore;
+
+// Closed-bar history for one timeframe: a fixed ring of Timeframe.getMaxBars() bars per symbol ID, one off-heap
+// column per field. Appended by BarManager under the symbol lock; read on the consumer thread or under that lock.
+public final class BarSeries {
+
+    private final Timeframe timeframe;
+    private final int capacity;
+    private final DoubleColumn open;
+    private final DoubleColumn high;
+    private final DoubleColumn low;
+    private final DoubleColumn close;
+    private final LongColumn volume;
+    private final LongColumn start;
+    private final LongColumn end;
+    private final LongColumn count;
+
+    BarSeries(OffHeapStore store, Timeframe timeframe) {
+        this.timeframe = timeframe;
+        this.capacity = timeframe.getMaxBars();
+        int rows = store.symbolCapacity() * capacity;
+        String prefix = "bars." + timeframe.name() + ".";
+        this.open = store.doubles(prefix + "open", rows, 0.0);
+        this.high = store.doubles(prefix + "high", rows, 0.0);
+        this.low = store.doubles(prefix + "low", rows, 0.0);
+        this.close = store.doubles(prefix + "close", rows, 0.0);
+        this.volume = store.longs(prefix + "volume", rows, 0L);
+        this.start = store.longs(prefix + "start", rows, 0L);
+        this.end = store.longs(prefix + "end", rows, 0L);
+        this.count = store.longs(prefix + "count", store.symbolCapacity(), 0L);
+    }
+
+    void append(int symbolId, long startTime, long endTime, double o, double h, double l, double c, long v) {
+        long n = count.get(symbolId);
+        int row = symbolId * capacity + (int) (n % capacity);
+        open.set(row, o);
+        high.set(row, h);
+        low.set(row, l);
+        close.set(row, c);
+        volume.set(row, v);
+        start.set(row, startTime);
+        end.set(row, endTime);
+        count.setRelease(symbolId, n + 1);
+    }
+
+    void clear(int symbolId) {
+        count.setRelease(symbolId, 0L);
+    }
+
+    public Timeframe timeframe() { return timeframe; }
+    public int capacity() { return capacity; }
+
+    public int size(int symbolId) { return (int) Math.min(count.getAcquire(symbolId), capacity); }
+
+    // ago = 0 is the most recently closed bar; callers keep ago < size(symbolId).
+    public double open(int symbolId, int ago) { return open.get(row(symbolId, ago)); }
+    public double high(int symbolId, int ago) { return high.get(row(symbolId, ago)); }
+    public double low(int symbolId, int ago) { return low.get(row(symbolId, ago)); }
+    public double close(int symbolId, int ago) { return close.get(row(symbolId, ago)); }
+    public long volume(int symbolId, int ago) { return volume.get(row(symbolId, ago)); }
+    public long startTime(int symbolId, int ago) { return start.get(row(symbolId, ago)); }
+    // The boundary for time bars; the second of the closing print for activity bars.
+    public long endTime(int symbolId, int ago) { return end.get(row(symbolId, ago)); }
+
+    private int row(int symbolId, int ago) {
+        return symbolId * capacity + (int) ((count.getAcquire(symbolId) - 1 - ago) % capacity);
+    }
+}
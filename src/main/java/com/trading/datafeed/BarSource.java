@@ -0,0 +1,18 @@
+package com.trading.datafeed;
+
+// Where BarManager's time bars come from. TICKS builds SEC1 and up from trades as they print, and keeps IB's
+// 5-second bars only to reconcile against; REALTIME_BARS aggregates IB's 5-second bars, so SEC1 stays empty.
+public enum BarSource {
+    TICKS(Timeframe.SEC1),
+    REALTIME_BARS(Timeframe.SEC5);
+
+    private final Timeframe base;
+
+    BarSource(Timeframe base) {
+        this.base = base;
+    }
+
+    public Timeframe base() {
+        return base;
+    }
+}
@@ -0,0 +1,29 @@
+package com.trading.datafeed;
+
+// How a timeframe's bars are cut. TIME bars close on the clock; the activity types close on the print that brings
+// the bar's accumulated activity up to the timeframe's size, so they come faster in bursts and stop when nothing trades.
+public enum BarType {
+    NONE,
+    TIME,
+    TRADES {
+        @Override
+        public double activity(double price, long size) { return 1; }
+    },
+    SHARES {
+        @Override
+        public double activity(double price, long size) { return size; }
+    },
+    DOLLARS {
+        @Override
+        public double activity(double price, long size) { return price * size; }
+    };
+
+    // What one print adds towards closing an activity bar.
+    public double activity(double price, long size) {
+        return 0;
+    }
+
+    public boolean isActivity() {
+        return this == TRADES || this == SHARES || this == DOLLARS;
+    }
+}
@@ -0,0 +1,25 @@
+package com.trading.datafeed;
+
+// Read-only window onto the latest closed bar of one symbol and timeframe. BarManager hands the same instance to
+// every close, so listeners read it during the callback and must not keep it.
+public final class BarView {
+
+    private final BarSeries series;
+    private final int symbolId;
+
+    BarView(BarSeries series, int symbolId) {
+        this.series = series;
+        this.symbolId = symbolId;
+    }
+
+    public int symbolId() { return symbolId; }
+    public Timeframe timeframe() { return series.timeframe(); }
+
+    public double open() { return series.open(symbolId, 0); }
+    public double high() { return series.high(symbolId, 0); }
+    public double low() { return series.low(symbolId, 0); }
+    public double close() { return series.close(symbolId, 0); }
+    public long volume() { return series.volume(symbolId, 0); }
+    public long startTime() { return series.startTime(symbolId, 0); }
+    public long closeTime() { return series.endTime(symbolId, 0); }
+}
@@ -1,39 +1,84 @@
 package com.trading.datafeed;
 
-import java.util.Arrays;
 import java.util.List;
 
 public enum Timeframe {
-    TICK(0, 0),
-    SEC5(5, 720),
-    SEC10(10, 360),
-    SEC30(30, 120),
-    MIN1(60, 60);
+    TICK(BarType.NONE, 0, 0),
+    SEC1(BarType.TIME, 1, 300),
+    SEC5(BarType.TIME, 5, 720),
+    SEC10(BarType.TIME, 10, 360),
+    SEC30(BarType.TIME, 30, 120),
+    MIN1(BarType.TIME, 60, 60),
+    // Default sizes; marketData.tradesPerBar, sharesPerBar and dollarsPerBar override them
+    TRADES(BarType.TRADES, 100, 300),
+    SHARES(BarType.SHARES, 10_000, 300),
+    DOLLARS(BarType.DOLLARS, 100_000, 300);
 
-    private final int seconds;
+    public static final int COUNT = values().length;
+
+    private static final List<Timeframe> HIERARCHY = List.of(SEC1, SEC5, SEC10, SEC30, MIN1);
+    private static final List<List<Timeframe>> HIGHER = HIERARCHY.stream()
+            .map(tf -> HIERARCHY.subList(HIERARCHY.indexOf(tf) + 1, HIERARCHY.size()))
+            .toList();
+    private static final List<Timeframe> ACTIVITY = List.of(TRADES, SHARES, DOLLARS);
+    private static final List<Timeframe> BARS = List.of(SEC1, SEC5, SEC10, SEC30, MIN1, TRADES, SHARES, DOLLARS);
+
+    private final BarType type;
+    // Seconds for TIME bars; the default trades, shares or dollars for activity bars
+    private final long size;
     private final int maxBars;
 
-    Timeframe(int seconds, int maxBars) {
-        this.seconds = seconds;
+    Timeframe(BarType type, long size, int maxBars) {
+        this.type = type;
+        this.size = size;
         this.maxBars = maxBars;
     }
 
+    public BarType getType() {
+        return type;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    // Zero for anything but TIME bars.
     public int getSeconds() {
-        return seconds;
+        return type == BarType.TIME ? (int) size : 0;
     }
 
     public int getMaxBars() {
         return maxBars;
     }
 
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public int slot(int symbolId) {
+        return symbolId * COUNT + ordinal();
+    }
+
+    public static int slots(int symbolCapacity) {
+        return symbolCapacity * COUNT;
+    }
+
     public static List<Timeframe> getHierarchy() {
-        return Arrays.asList(SEC5, SEC10, SEC30, MIN1);
+        return HIERARCHY;
+    }
+
+    public static List<Timeframe> getActivityBars() {
+        return ACTIVITY;
+    }
+
+    // Every timeframe that keeps a bar series: the time hierarchy, then the activity bars.
+    public static List<Timeframe> getBarTimeframes() {
+        return BARS;
     }
 
     public static List<Timeframe> hierarchyFrom(Timeframe base) {
-        List<Timeframe> full = getHierarchy();
-        int index = full.indexOf(base);
-        if (index < 0 || index == full.size() - 1) return List.of();
-        return full.subList(index + 1, full.size());
+        int index = HIERARCHY.indexOf(base);
+        if (index < 0) return List.of();
+        return HIGHER.get(index);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,12 @@
 package com.trading.ib;
 
 import com.ib.client.*;
+import com.trading.journal.MarketDataRecorder;
 import com.trading.scanner.ScanDataEvent;
+import com.trading.settings.AppConfig;
+import com.trading.store.OffHeapStore;
 import com.trading.strategy.StrategyType;
+import com.trading.time.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,6 +15,8 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 public class IBConnector extends IBWrapperAdapter {
@@ -19,19 +25,33 @@ public class IBConnector extends IBWrapperAdapter {
 
     private final EClientSocket client;
     private final EReaderSignal signal;
+    private final MarketDataDispatcher dispatcher;
+    private final SymbolRegistry symbolRegistry;
+    private final Clock clock;
+    private final OffHeapStore store;
+    private final SymbolColumns symbolColumns;
+    // Prints and quotes come from tick-by-tick AllLast/BidAsk instead of the reqMktData LAST and BID/ASK ticks
+    private final boolean tickByTick;
 
     // Symbol data storage
     private final Map<String, SymbolData> symbolDataMap = new ConcurrentHashMap<>();
-    private final Map<Integer, String> tickerIdToSymbol = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SymbolData> symbolDataById;
     private final AtomicInteger nextTickerId = new AtomicInteger(1);
     private final AtomicInteger orderId = new AtomicInteger(-1);
     private volatile double accountBalance = 0.0;
 
-    private static final int DEPTH_OFFSET = 10000;
-    private static final int RTBAR_OFFSET = 40000;
+    // Market data request IDs are derived from the dense symbol ID, so callbacks decode without a lookup.
+    public static final int MKTDATA_OFFSET = 100_000;
+    public static final int DEPTH_OFFSET = 200_000;
+    public static final int RTBAR_OFFSET = 300_000;
+    public static final int TBT_LAST_OFFSET = 400_000;
+    public static final int TBT_BID_ASK_OFFSET = 500_000;
+    // Levels requested per side of the L2 book
+    public static final int DEPTH_ROWS = 10;
 
     // Listeners
     private final List<TickListener> tickListeners = new CopyOnWriteArrayList<>();
+    private final List<TradeListener> tradeListeners = new CopyOnWriteArrayList<>();
     private final List<OrderBookListener> orderBookListeners = new CopyOnWriteArrayList<>();
     private final List<AccountListener> accountListeners = new CopyOnWriteArrayList<>();
     private final List<ExecutionListener> executionListeners = new CopyOnWriteArrayList<>();
@@ -41,20 +61,52 @@ public class IBConnector extends IBWrapperAdapter {
     private final Map<Integer, Runnable> scannerCompleteListeners = new ConcurrentHashMap<>();
 
     private Thread readerThread;
+    private volatile MarketDataRecorder recorder;
 
-    public IBConnector() {
+    public IBConnector(AppConfig.MarketDataConfig marketDataConfig, SymbolRegistry symbolRegistry, Clock clock) {
+        this(marketDataConfig, symbolRegistry, clock, EClientSocket::new);
+    }
+
+    public IBConnector(AppConfig.MarketDataConfig marketDataConfig, SymbolRegistry symbolRegistry, Clock clock,
+                       BiFunction<EWrapper, EReaderSignal, EClientSocket> clientFactory) {
+        if (symbolRegistry.capacity() > MKTDATA_OFFSET)
+            throw new IllegalArgumentException("Symbol capacity exceeds request ID range: " + symbolRegistry.capacity());
+        this.symbolRegistry = symbolRegistry;
+        this.clock = clock;
+        this.symbolDataById = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        this.store = new OffHeapStore(symbolRegistry.capacity());
+        this.symbolColumns = new SymbolColumns(store);
+        this.tickByTick = marketDataConfig.tickByTick();
         this.signal = new EJavaSignal();
-        this.client = new EClientSocket(this, signal);
+        this.client = clientFactory.apply(this, signal);
+        this.dispatcher = new MarketDataDispatcher(marketDataConfig.consumerThreads(), marketDataConfig.ringCapacity(),
+                marketDataConfig.drainBatchSize(), this::onMarketData);
     }
 
     // ======================== CONNECTION ========================
     public void connect(String host, int port, int clientId) {
+        MarketDataRecorder rec = recorder;
+        if (rec != null) {
+            try {
+                rec.start();
+            } catch (IOException e) {
+                log.error("Failed to start market data recorder, continuing without recording", e);
+                recorder = null;
+            }
+        }
+        dispatcher.start();
         client.eConnect(host, port, clientId);
         if (client.isConnected()) log.info("Connected to TWS at {}:{}", host, port);
         startReaderThread();
         subscribeAccountSummary();
     }
 
+    // Replay and simulation drive the EWrapper callbacks directly, without a TWS session.
+    public void startOffline() {
+        dispatcher.start();
+        log.info("Market data pipeline started without a TWS connection.");
+    }
+
     public void disconnect() {
         try {
             if (readerThread != null) {
@@ -68,6 +120,9 @@ public class IBConnector extends IBWrapperAdapter {
         if (client.isConnected()) {
             client.eDisconnect();
         }
+        dispatcher.stop();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.close();
         log.info("Disconnected from IBKR.");
     }
 
@@ -102,32 +157,50 @@ public class IBConnector extends IBWrapperAdapter {
 
     // ======================== SUBSCRIBE/UNSUBSCRIBE SYMBOL ========================
 
-    public void subscribeSymbol(String symbol, StrategyType strategyType) {
-        int tickerId = getNextTickerId();
+    public int subscribeSymbol(String symbol, StrategyType strategyType) {
+        int symbolId = symbolRegistry.register(symbol);
         Contract contract = createStockContract(symbol);
 
-        SymbolData data = symbolDataMap.computeIfAbsent(symbol, s -> new SymbolData());
+        SymbolData data = symbolDataMap.computeIfAbsent(symbol, s -> {
+            symbolColumns.clear(symbolId);
+            return new SymbolData(symbolColumns, symbolId);
+        });
         data.setStrategyType(strategyType);
+        symbolDataById.set(symbolId, data);
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.symbolAdded(symbolId, symbol, strategyType);
 
-        tickerIdToSymbol.put(tickerId, symbol);
-        client.reqMktData(tickerId, contract, "", false, false, null);
-        client.reqMktDepth(tickerId + DEPTH_OFFSET, contract, 10, true, null);
-        client.reqRealTimeBars(tickerId + RTBAR_OFFSET, contract, 5, "TRADES", false, null);
+        if (client.isConnected()) {
+            client.reqMktData(MKTDATA_OFFSET + symbolId, contract, "", false, false, null);
+            client.reqMktDepth(DEPTH_OFFSET + symbolId, contract, DEPTH_ROWS, true, null);
+            client.reqRealTimeBars(RTBAR_OFFSET + symbolId, contract, 5, "TRADES", false, null);
+            if (tickByTick) {
+                client.reqTickByTickData(TBT_LAST_OFFSET + symbolId, contract, "AllLast", 0, false);
+                client.reqTickByTickData(TBT_BID_ASK_OFFSET + symbolId, contract, "BidAsk", 0, false);
+            }
+        }
 
-        log.info("Subscribed {} (tickerId = {}) strategy = {}", symbol, tickerId, strategyType);
+        log.info("Subscribed {} (symbolId = {}) strategy = {}", symbol, symbolId, strategyType);
+        return symbolId;
     }
 
     public void unsubscribeSymbol(String symbol) {
-        tickerIdToSymbol.entrySet().removeIf(e -> {
-            if (e.getValue().equals(symbol)) {
-                int tid = e.getKey();
-                try { client.cancelMktData(tid); } catch (Exception ignored) {}
-                try { client.cancelMktDepth(tid + DEPTH_OFFSET, false); } catch (Exception ignored) {}
-                try { client.cancelRealTimeBars(tid + RTBAR_OFFSET); } catch (Exception ignored) {}
-                return true;
+        int symbolId = symbolRegistry.idOf(symbol);
+        if (symbolId != SymbolRegistry.NO_ID) {
+            if (client.isConnected()) {
+                try { client.cancelMktData(MKTDATA_OFFSET + symbolId); } catch (Exception ignored) {}
+                try { client.cancelMktDepth(DEPTH_OFFSET + symbolId, false); } catch (Exception ignored) {}
+                try { client.cancelRealTimeBars(RTBAR_OFFSET + symbolId); } catch (Exception ignored) {}
+                if (tickByTick) {
+                    try { client.cancelTickByTickData(TBT_LAST_OFFSET + symbolId); } catch (Exception ignored) {}
+                    try { client.cancelTickByTickData(TBT_BID_ASK_OFFSET + symbolId); } catch (Exception ignored) {}
+                }
             }
-            return false;
-        });
+            symbolDataById.set(symbolId, null);
+            MarketDataRecorder rec = recorder;
+            if (rec != null) rec.symbolRemoved(symbolId, symbol);
+            symbolRegistry.release(symbol);
+        }
 
         symbolDataMap.remove(symbol);
         log.info("Unsubscribed: {}", symbol);
@@ -143,6 +216,9 @@ public class IBConnector extends IBWrapperAdapter {
     }
 
     // ======================== EVENT LISTENER REGISTRATION (ADD/REMOVE) ========================
+    public void addTradeListener(TradeListener listener) { tradeListeners.add(listener); }
+    public void removeTradeListener(TradeListener listener) { tradeListeners.remove(listener); }
+
     public void addOrderBookListener(OrderBookListener listener) { orderBookListeners.add(listener); }
     public void removeOrderBookListener(OrderBookListener listener) { orderBookListeners.remove(listener); }
 
@@ -163,12 +239,21 @@ public class IBConnector extends IBWrapperAdapter {
         if (completion != null) scannerCompleteListeners.put(tickerId, completion);
     }
 
+    // Must be set before connect(); the recorder is written only from the reader thread.
+    public void setRecorder(MarketDataRecorder recorder) { this.recorder = recorder; }
+
     // ======================== GETTERS ========================
     public EClientSocket getEClient() { return client; }
     public Map<String, SymbolData> getSymbolData() { return symbolDataMap; }
+    public SymbolData getSymbolData(int symbolId) { return symbolRegistry.isValid(symbolId) ? symbolDataById.get(symbolId) : null; }
+    public SymbolRegistry getSymbolRegistry() { return symbolRegistry; }
+    public OffHeapStore getStore() { return store; }
     public int getNextTickerId() { return nextTickerId.getAndIncrement(); }
     public int getNextOrderId() { return orderId.getAndIncrement(); }
     public Contract getNewStockContract(String symbol){ return createStockContract(symbol); }
+    public long getMarketDataBacklog() { return dispatcher.backlog(); }
+    public void awaitMarketDataDrained() { dispatcher.awaitDrained(); }
+    public Clock getClock() { return clock; }
 
     // ======================== CALLBACKS FROM IB ========================
     @Override
@@ -177,63 +262,152 @@ public class IBConnector extends IBWrapperAdapter {
         log.info("nextValidId: {}", id);
     }
 
+    // Reader thread: decode and publish only. Listener work happens on the market data consumer threads.
     @Override
     public void tickPrice(int tickerId, int field, double price, TickAttrib attrib) {
-        String symbol = tickerIdToSymbol.get(tickerId);
-        if (symbol == null) return;
-        if (field != TickType.LAST.ordinal() && field != TickType.CLOSE.ordinal()) return;
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordTickPrice(tickerId - MKTDATA_OFFSET, field, price);
+        if (field != TickType.CLOSE.ordinal() && (tickByTick || field != TickType.LAST.ordinal()
+                && field != TickType.BID.ordinal() && field != TickType.ASK.ordinal())) return;
+        dispatcher.publishTickPrice(tickerId - MKTDATA_OFFSET, field, price, clock.currentTimeMillis());
+    }
 
-        SymbolData data = symbolDataMap.get(symbol);
-        if (data == null) return;
+    @Override
+    public void tickSize(int tickerId, int field, Decimal size) {
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordTickSize(tickerId - MKTDATA_OFFSET, field, size == null ? -1L : size.longValue());
+        if (tickByTick || field != TickType.LAST_SIZE.ordinal() && field != TickType.BID_SIZE.ordinal()
+                && field != TickType.ASK_SIZE.ordinal()) return;
+
+        long qty = size.longValue();
+        if (qty < 0) return;
+        dispatcher.publishTickSize(tickerId - MKTDATA_OFFSET, field, qty, clock.currentTimeMillis());
+    }
 
-        data.addPrice(price);
-        StrategyType currentStrategy = data.getStrategyType();
+    @Override
+    public void realtimeBar(int reqId, long time, double open, double high, double low,
+                            double close, Decimal volume, Decimal wap, int count) {
+        long vol = (volume == null) ? 0L : volume.longValue();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordRealTimeBar(reqId - RTBAR_OFFSET, time, open, high, low, close, vol);
+        dispatcher.publishRealTimeBar(reqId - RTBAR_OFFSET, time, open, high, low, close, vol);
+    }
 
-        tickListeners.forEach(l -> l.onTick(symbol, data.getLastPrice(), data.getLastVolume(), System.currentTimeMillis(), currentStrategy));
+    @Override
+    public void updateMktDepthL2(int tickerId, int position, String marketMaker,
+                                 int side, int operation, double price, Decimal size, boolean isSmartDepth) {
+        long qty = size == null ? 0L : size.longValue();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordDepth(tickerId - DEPTH_OFFSET, position, side, operation, price, qty);
+        dispatcher.publishDepth(tickerId - DEPTH_OFFSET, position, side, operation, price, qty);
     }
 
+    // Recorded whatever the mode, published only in tick-by-tick mode, where the LAST and BID/ASK ticks are dropped
+    // instead, so a journal replays the same way under either setting.
     @Override
-    public void tickSize(int tickerId, int field, Decimal size) {
-        if (field != TickType.LAST_SIZE.ordinal()) return;
+    public void tickByTickAllLast(int reqId, int tickType, long time, double price, Decimal size,
+                                  TickAttribLast tickAttribLast, String exchange, String specialConditions) {
+        long qty = size == null ? 0L : size.longValue();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordTradeTick(reqId - TBT_LAST_OFFSET, time, price, qty);
+        if (!tickByTick || price <= 0 || qty <= 0) return;
+        dispatcher.publishTrade(reqId - TBT_LAST_OFFSET, price, qty, clock.currentTimeMillis());
+    }
 
-        String symbol = tickerIdToSymbol.get(tickerId);
+    @Override
+    public void tickByTickBidAsk(int reqId, long time, double bidPrice, double askPrice, Decimal bidSize,
+                                 Decimal askSize, TickAttribBidAsk tickAttribBidAsk) {
+        long bidQty = bidSize == null ? 0L : bidSize.longValue();
+        long askQty = askSize == null ? 0L : askSize.longValue();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordQuoteTick(reqId - TBT_BID_ASK_OFFSET, time, bidPrice, askPrice, bidQty, askQty);
+        if (!tickByTick) return;
+        dispatcher.publishQuote(reqId - TBT_BID_ASK_OFFSET, bidPrice, askPrice, bidQty, askQty, clock.currentTimeMillis());
+    }
+
+    private void onMarketData(MarketDataRingBuffer buffer, int slot) {
+        int symbolId = buffer.symbolId(slot);
+        SymbolData data = getSymbolData(symbolId);
+        if (data == null) return;
+        String symbol = symbolRegistry.symbolOf(symbolId);
         if (symbol == null) return;
 
-        long tradeSize = size.longValue();
-        if (tradeSize < 0) return;
+        switch (buffer.kind(slot)) {
+            case MarketDataRingBuffer.TICK_PRICE -> onTickPrice(symbolId, symbol, data, buffer.field(slot),
+                    buffer.price(slot), buffer.time(slot));
+            case MarketDataRingBuffer.TICK_SIZE -> onTickSize(symbolId, symbol, data, buffer.field(slot),
+                    buffer.size(slot), buffer.time(slot));
+            case MarketDataRingBuffer.REALTIME_BAR -> onRealTimeBar(symbolId, symbol, buffer.time(slot),
+                    buffer.open(slot), buffer.high(slot), buffer.low(slot), buffer.close(slot), buffer.volume(slot));
+            case MarketDataRingBuffer.DEPTH -> onDepth(symbolId, symbol, data, buffer.position(slot), buffer.side(slot),
+                    buffer.operation(slot), buffer.price(slot), buffer.size(slot));
+            case MarketDataRingBuffer.TRADE -> onTrade(symbolId, symbol, data, buffer.price(slot), buffer.size(slot),
+                    buffer.time(slot));
+            case MarketDataRingBuffer.QUOTE -> data.setQuote(buffer.bid(slot), buffer.ask(slot), buffer.bidSize(slot),
+                    buffer.askSize(slot));
+            default -> { }
+        }
+    }
 
-        SymbolData data = symbolDataMap.get(symbol);
-        if (data == null) return;
+    // Quote ticks only update the top of book; they are not prints, so no tick or trade listener sees them.
+    private void onTickPrice(int symbolId, String symbol, SymbolData data, int field, double price, long time) {
+        if (field == TickType.BID.ordinal()) {
+            data.setBid(price);
+            return;
+        }
+        if (field == TickType.ASK.ordinal()) {
+            data.setAsk(price);
+            return;
+        }
+        if (field == TickType.LAST.ordinal()) data.setLastTradePrice(price);
+        data.addPrice(price);
+        StrategyType currentStrategy = data.getStrategyType();
 
+        tickListeners.forEach(l -> l.onTick(symbolId, symbol, data.getLastPrice(), data.getLastVolume(), time, currentStrategy));
+    }
+
+    private void onTickSize(int symbolId, String symbol, SymbolData data, int field, long tradeSize, long time) {
+        if (field == TickType.BID_SIZE.ordinal()) {
+            data.setBidSize(tradeSize);
+            return;
+        }
+        if (field == TickType.ASK_SIZE.ordinal()) {
+            data.setAskSize(tradeSize);
+            return;
+        }
         data.addVolume(tradeSize);
         StrategyType currentStrategy = data.getStrategyType();
 
-        tickListeners.forEach(l -> l.onTick(symbol, data.getLastPrice(), data.getLastVolume(), System.currentTimeMillis(), currentStrategy));
+        // LAST_SIZE follows the LAST price it belongs to, so the pair is one print. It is never paired with a CLOSE
+        // or other price tick, and a size before the first LAST is not a print.
+        double tradePrice = data.getLastTradePrice();
+        if (tradePrice > 0 && tradeSize > 0) {
+            for (TradeListener l : tradeListeners) l.onTrade(symbolId, tradePrice, tradeSize, time);
+        }
+
+        tickListeners.forEach(l -> l.onTick(symbolId, symbol, data.getLastPrice(), data.getLastVolume(), time, currentStrategy));
     }
 
-    @Override
-    public void realtimeBar(int reqId, long time, double open, double high, double low,
-                            double close, Decimal volume, Decimal wap, int count) {
-        String symbol = tickerIdToSymbol.get(reqId - RTBAR_OFFSET);
-        if (symbol == null) return;
+    // One event per print, so trade and tick listeners each see it once.
+    private void onTrade(int symbolId, String symbol, SymbolData data, double price, long size, long time) {
+        data.addTrade(price, size);
+        StrategyType currentStrategy = data.getStrategyType();
 
-        long vol = (volume == null) ? 0L : volume.longValue();
-        realTimeBarListeners.forEach(l->l.onRealTimeBar(symbol, time, open, high, low, close, vol));
+        for (TradeListener l : tradeListeners) l.onTrade(symbolId, price, size, time);
+        tickListeners.forEach(l -> l.onTick(symbolId, symbol, price, size, time, currentStrategy));
     }
 
-    @Override
-    public void updateMktDepthL2(int tickerId, int position, String marketMaker,
-                                 int side, int operation, double price, Decimal size, boolean isSmartDepth) {
-        String symbol = tickerIdToSymbol.get(tickerId - DEPTH_OFFSET);
-        if (symbol == null) return;
+    private void onRealTimeBar(int symbolId, String symbol, long time, double open, double high, double low, double close, long vol) {
+        realTimeBarListeners.forEach(l->l.onRealTimeBar(symbolId, symbol, time, open, high, low, close, vol));
+    }
 
+    private void onDepth(int symbolId, String symbol, SymbolData data, int position, int side, int operation,
+                         double price, long qty) {
         boolean isBid = side == 0;
-        long qty = size == null ? 0L : size.longValue();
-        SymbolData data = symbolDataMap.get(symbol);
-        if (data == null) return;
         StrategyType currentStrategy = data.getStrategyType();
 
-        orderBookListeners.forEach(l -> l.onOrderBookUpdate(symbol, isBid, price, qty, operation, currentStrategy));
+        orderBookListeners.forEach(l -> l.onOrderBookUpdate(symbolId, symbol, isBid, position, price, qty, operation,
+                currentStrategy));
     }
 
     @Override
@@ -249,7 +423,8 @@ public class IBConnector extends IBWrapperAdapter {
     public void position(String account, Contract contract, Decimal pos, double avgCost) {
         String symbol = contract.symbol();
         int position = (int) pos.longValue();
-        SymbolData data = symbolDataMap.computeIfAbsent(symbol, s -> new SymbolData());
+        SymbolData data = symbolDataMap.get(symbol);
+        if (data == null) return;
         data.setPosition(position);
     }
 
@@ -257,6 +432,9 @@ public class IBConnector extends IBWrapperAdapter {
     public void execDetails(int reqId, Contract contract, Execution execution) {
         if (execution == null) return;
         long shares = execution.shares() == null ? 0L : execution.shares().longValue();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordExecution(symbolRegistry.idOf(contract.symbol()), contract.symbol(),
+                execution.orderId(), "BOT".equals(execution.side()), execution.price(), shares);
         if (shares <= 0) return;
         String symbol = contract.symbol();
         int filledQty = (int) shares;
@@ -304,6 +482,8 @@ public class IBConnector extends IBWrapperAdapter {
 
         int filledQty = (filled == null) ? 0 : (int) filled.longValue();
         int remainingQty = (remaining == null) ? 0 : (int) remaining.longValue();
+        MarketDataRecorder rec = recorder;
+        if (rec != null) rec.recordOrderStatus(orderId, status, filledQty, remainingQty, avgFillPrice, lastFillPrice);
 
         orderStatusListeners.forEach(l -> l.onOrderStatus(null, orderId, status, filledQty, remainingQty, avgFillPrice));
     }
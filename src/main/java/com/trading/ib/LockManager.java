@@ -7,43 +7,55 @@ import java.util.concurrent.locks.ReentrantLock;
 
 public class LockManager {
 
+    // Market data state (bars, indicators, order book) is locked by dense symbol ID;
+    // order and position state is locked by symbol name so it also covers symbols that were never subscribed.
     private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final ReentrantLock[] symbolLocks;
+    private final ReentrantLock[] timeframeLocks;
 
-    private String makeKey(String symbol) {
-        return symbol;
-    }
-
-    private String makeKey(String symbol, Timeframe tf) {
-        return symbol + "-" + tf.name();
+    public LockManager(int symbolCapacity) {
+        this.symbolLocks = new ReentrantLock[symbolCapacity];
+        this.timeframeLocks = new ReentrantLock[Timeframe.slots(symbolCapacity)];
+        for (int i = 0; i < symbolLocks.length; i++) symbolLocks[i] = new ReentrantLock();
+        for (int i = 0; i < timeframeLocks.length; i++) timeframeLocks[i] = new ReentrantLock();
     }
 
     public void lock(String symbol) {
-        ReentrantLock lock = locks.computeIfAbsent(makeKey(symbol), k -> new ReentrantLock());
+        ReentrantLock lock = locks.computeIfAbsent(symbol, k -> new ReentrantLock());
         lock.lock();
     }
 
     public void unlock(String symbol) {
-        ReentrantLock lock = locks.get(makeKey(symbol));
+        ReentrantLock lock = locks.get(symbol);
         if (lock != null) lock.unlock();
     }
 
     public boolean tryLock(String symbol) {
-        ReentrantLock lock = locks.computeIfAbsent(makeKey(symbol), k -> new ReentrantLock());
+        ReentrantLock lock = locks.computeIfAbsent(symbol, k -> new ReentrantLock());
         return lock.tryLock();
     }
 
-    public void lock(String symbol, Timeframe tf) {
-        ReentrantLock lock = locks.computeIfAbsent(makeKey(symbol, tf), k -> new ReentrantLock());
-        lock.lock();
+    public void lock(int symbolId) {
+        symbolLocks[symbolId].lock();
     }
 
-    public void unlock(String symbol, Timeframe tf) {
-        ReentrantLock lock = locks.get(makeKey(symbol, tf));
-        if (lock != null) lock.unlock();
+    public void unlock(int symbolId) {
+        symbolLocks[symbolId].unlock();
     }
 
-    public boolean tryLock(String symbol, Timeframe tf) {
-        ReentrantLock lock = locks.computeIfAbsent(makeKey(symbol, tf), k -> new ReentrantLock());
-        return lock.tryLock();
+    public boolean tryLock(int symbolId) {
+        return symbolLocks[symbolId].tryLock();
+    }
+
+    public void lock(int symbolId, Timeframe tf) {
+        timeframeLocks[tf.slot(symbolId)].lock();
+    }
+
+    public void unlock(int symbolId, Timeframe tf) {
+        timeframeLocks[tf.slot(symbolId)].unlock();
+    }
+
+    public boolean tryLock(int symbolId, Timeframe tf) {
+        return timeframeLocks[tf.slot(symbolId)].tryLock();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package com.trading.ib;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class MarketDataDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataDispatcher.class);
+
+    private static final int IDLE_SPINS = 200;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final MarketDataRingBuffer[] rings;
+    private final Thread[] consumers;
+    private final MarketDataRingBuffer.Handler handler;
+    private final int batchSize;
+
+    private volatile boolean running;
+
+    public MarketDataDispatcher(int consumerThreads, int ringCapacity, int batchSize, MarketDataRingBuffer.Handler handler) {
+        if (consumerThreads <= 0) throw new IllegalArgumentException("consumerThreads must be positive");
+        this.rings = new MarketDataRingBuffer[consumerThreads];
+        this.consumers = new Thread[consumerThreads];
+        this.batchSize = Math.max(1, batchSize);
+        this.handler = (buffer, slot) -> {
+            try {
+                handler.onEvent(buffer, slot);
+            } catch (Throwable t) {
+                log.error("Market data handler failed for symbolId {}", buffer.symbolId(slot), t);
+            }
+        };
+        for (int i = 0; i < consumerThreads; i++) {
+            rings[i] = new MarketDataRingBuffer(ringCapacity);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < consumers.length; i++) {
+            MarketDataRingBuffer ring = rings[i];
+            Thread t = new Thread(() -> consume(ring), "md-consumer-" + i);
+            t.setDaemon(true);
+            consumers[i] = t;
+            t.start();
+        }
+        log.info("Started {} market data consumer thread(s).", consumers.length);
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        for (int i = 0; i < consumers.length; i++) {
+            Thread t = consumers[i];
+            if (t == null) continue;
+            LockSupport.unpark(t);
+            try {
+                t.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumers[i] = null;
+        }
+        log.info("Stopped market data consumer threads.");
+    }
+
+    private void consume(MarketDataRingBuffer ring) {
+        int idle = 0;
+        while (running) {
+            if (ring.drain(handler, batchSize) > 0) {
+                idle = 0;
+            } else if (++idle < IDLE_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        while (ring.drain(handler, batchSize) > 0) { }
+    }
+
+    // Events for the same symbol always land on the same ring, so per-symbol ordering is preserved.
+    private MarketDataRingBuffer ringFor(int symbolId) {
+        return rings[Math.floorMod(symbolId, rings.length)];
+    }
+
+    public void publishTickPrice(int symbolId, int field, double price, long time) {
+        ringFor(symbolId).publishTickPrice(symbolId, field, price, time);
+    }
+
+    public void publishTickSize(int symbolId, int field, long size, long time) {
+        ringFor(symbolId).publishTickSize(symbolId, field, size, time);
+    }
+
+    public void publishRealTimeBar(int symbolId, long time, double open, double high, double low, double close, long volume) {
+        ringFor(symbolId).publishRealTimeBar(symbolId, time, open, high, low, close, volume);
+    }
+
+    public void publishDepth(int symbolId, int position, int side, int operation, double price, long size) {
+        ringFor(symbolId).publishDepth(symbolId, position, side, operation, price, size);
+    }
+
+    public void publishTrade(int symbolId, double price, long size, long time) {
+        ringFor(symbolId).publishTrade(symbolId, price, size, time);
+    }
+
+    public void publishQuote(int symbolId, double bid, double ask, long bidSize, long askSize, long time) {
+        ringFor(symbolId).publishQuote(symbolId, bid, ask, bidSize, askSize, time);
+    }
+
+    public long backlog() {
+        long total = 0;
+        for (MarketDataRingBuffer ring : rings) total += ring.backlog();
+        return total;
+    }
+
+    // Spins briefly, then yields so consumers sharing the core can make progress.
+    public void awaitDrained() {
+        int spins = 0;
+        while (backlog() > 0) {
+            if (++spins < IDLE_SPINS) Thread.onSpinWait();
+            else Thread.yield();
+        }
+    }
+
+    public int getConsumerThreads() {
+        return rings.length;
+    }
+}
@@ -0,0 +1,187 @@
+package com.trading.ib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MarketDataRingBuffer {
+
+    public static final int TICK_PRICE = 1;
+    public static final int TICK_SIZE = 2;
+    public static final int REALTIME_BAR = 3;
+    public static final int DEPTH = 4;
+    public static final int TRADE = 5;
+    public static final int QUOTE = 6;
+
+    public interface Handler {
+        void onEvent(MarketDataRingBuffer buffer, int slot);
+    }
+
+    private final int capacity;
+    private final int mask;
+
+    // Slots are preallocated columns; a slot is reused once the consumer has moved past it.
+    private final int[] kind;
+    private final int[] symbolId;
+    private final int[] field;
+    private final int[] position;
+    private final int[] operation;
+    private final double[] price;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final long[] size;
+    private final long[] askSize;
+    private final long[] time;
+
+    private final AtomicLong published = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+    private long nextSequence = 0;
+    private long cachedConsumed = -1;
+
+    public MarketDataRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.kind = new int[capacity];
+        this.symbolId = new int[capacity];
+        this.field = new int[capacity];
+        this.position = new int[capacity];
+        this.operation = new int[capacity];
+        this.price = new double[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.size = new long[capacity];
+        this.askSize = new long[capacity];
+        this.time = new long[capacity];
+    }
+
+    // ======================== PRODUCER (single thread) ========================
+    public void publishTickPrice(int symbolId, int field, double price, long time) {
+        long seq = claim();
+        int slot = (int) (seq & mask);
+        this.kind[slot] = TICK_PRICE;
+        this.symbolId[slot] = symbolId;
+        this.field[slot] = field;
+        this.price[slot] = price;
+        this.time[slot] = time;
+        published.setRelease(seq);
+    }
+
+    public void publishTickSize(int symbolId, int field, long size, long time) {
+        long seq = claim();
+        int slot = (int) (seq & mask);
+        this.kind[slot] = TICK_SIZE;
+        this.symbolId[slot] = symbolId;
+        this.field[slot] = field;
+        this.size[slot] = size;
+        this.time[slot] = time;
+        published.setRelease(seq);
+    }
+
+    public void publishRealTimeBar(int symbolId, long time, double open, double high, double low, double close, long volume) {
+        long seq = claim();
+        int slot = (int) (seq & mask);
+        this.kind[slot] = REALTIME_BAR;
+        this.symbolId[slot] = symbolId;
+        this.time[slot] = time;
+        this.open[slot] = open;
+        this.high[slot] = high;
+        this.low[slot] = low;
+        this.price[slot] = close;
+        this.size[slot] = volume;
+        published.setRelease(seq);
+    }
+
+    public void publishDepth(int symbolId, int position, int side, int operation, double price, long size) {
+        long seq = claim();
+        int slot = (int) (seq & mask);
+        this.kind[slot] = DEPTH;
+        this.symbolId[slot] = symbolId;
+        this.position[slot] = position;
+        this.field[slot] = side;
+        this.operation[slot] = operation;
+        this.price[slot] = price;
+        this.size[slot] = size;
+        published.setRelease(seq);
+    }
+
+    // A tick-by-tick print: price and size in one event rather than a LAST/LAST_SIZE pair.
+    public void publishTrade(int symbolId, double price, long size, long time) {
+        long seq = claim();
+        int slot = (int) (seq & mask);
+        this.kind[slot] = TRADE;
+        this.symbolId[slot] = symbolId;
+        this.price[slot] = price;
+        this.size[slot] = size;
+        this.time[slot] = time;
+        published.setRelease(seq);
+    }
+
+    public void publishQuote(int symbolId, double bid, double ask, long bidSize, long askSize, long time) {
+        long seq = claim();
+        int slot = (int) (seq & mask);
+        this.kind[slot] = QUOTE;
+        this.symbolId[slot] = symbolId;
+        this.price[slot] = bid;
+        this.open[slot] = ask;
+        this.size[slot] = bidSize;
+        this.askSize[slot] = askSize;
+        this.time[slot] = time;
+        published.setRelease(seq);
+    }
+
+    private long claim() {
+        long seq = nextSequence;
+        long wrapPoint = seq - capacity;
+        if (cachedConsumed < wrapPoint) {
+            int spins = 0;
+            while ((cachedConsumed = consumed.getAcquire()) < wrapPoint) {
+                if (++spins < 1000) Thread.onSpinWait();
+                else Thread.yield();
+            }
+        }
+        nextSequence = seq + 1;
+        return seq;
+    }
+
+    // ======================== CONSUMER (single thread) ========================
+    public int drain(Handler handler, int maxBatch) {
+        long from = consumed.getPlain() + 1;
+        long available = published.getAcquire();
+        if (available < from) return 0;
+
+        long to = Math.min(available, from + maxBatch - 1);
+        for (long seq = from; seq <= to; seq++) {
+            handler.onEvent(this, (int) (seq & mask));
+        }
+        consumed.setRelease(to);
+        return (int) (to - from + 1);
+    }
+
+    public long backlog() {
+        return published.getAcquire() - consumed.getAcquire();
+    }
+
+    public int capacity() { return capacity; }
+
+    // ======================== SLOT ACCESSORS ========================
+    public int kind(int slot) { return kind[slot]; }
+    public int symbolId(int slot) { return symbolId[slot]; }
+    public int field(int slot) { return field[slot]; }
+    public int side(int slot) { return field[slot]; }
+    public int position(int slot) { return position[slot]; }
+    public int operation(int slot) { return operation[slot]; }
+    public double price(int slot) { return price[slot]; }
+    public double open(int slot) { return open[slot]; }
+    public double high(int slot) { return high[slot]; }
+    public double low(int slot) { return low[slot]; }
+    public double close(int slot) { return price[slot]; }
+    public long size(int slot) { return size[slot]; }
+    public long volume(int slot) { return size[slot]; }
+    public long time(int slot) { return time[slot]; }
+    public double bid(int slot) { return price[slot]; }
+    public double ask(int slot) { return open[slot]; }
+    public long bidSize(int slot) { return size[slot]; }
+    public long askSize(int slot) { return askSize[slot]; }
+}
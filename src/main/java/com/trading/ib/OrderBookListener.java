@@ -3,5 +3,6 @@ package com.trading.ib;
 import com.trading.strategy.StrategyType;
 
 public interface OrderBookListener {
-    void onOrderBookUpdate(String symbol, boolean isBid, double price, long size, int operation, StrategyType currentStrategy);
+    void onOrderBookUpdate(int symbolId, String symbol, boolean isBid, int position, double price, long size, int operation,
+                           StrategyType currentStrategy);
 }
@@ -1,6 +1,6 @@
 package com.trading.ib;
 
 public interface RealTimeBarListener {
-    void onRealTimeBar(String symbol, long startTime, double open, double high,
+    void onRealTimeBar(int symbolId, String symbol, long startTime, double open, double high,
                        double low, double close, long volume);
 }
@@ -0,0 +1,81 @@
+package com.trading.ib;
+
+import com.trading.store.DoubleColumn;
+import com.trading.store.IntColumn;
+import com.trading.store.LongColumn;
+import com.trading.store.OffHeapStore;
+
+// Off-heap columns behind every SymbolData, one row per symbol ID.
+final class SymbolColumns {
+
+    static final int RING_CAPACITY = 128;
+    static final int RING_MASK = RING_CAPACITY - 1;
+
+    final DoubleColumn priceRing;
+    final LongColumn volumeRing;
+    final LongColumn priceCount;
+    final LongColumn volumeCount;
+
+    final LongColumn quoteSeq;
+    final DoubleColumn lastPrice;
+    final LongColumn lastVolume;
+    final DoubleColumn bid;
+    final DoubleColumn ask;
+    final LongColumn bidSize;
+    final LongColumn askSize;
+    // Price of the last LAST tick only; consumer thread alone reads and writes it
+    final DoubleColumn lastTradePrice;
+
+    final LongColumn positionSeq;
+    final IntColumn position;
+    final DoubleColumn entryPrice;
+    final DoubleColumn peakPrice;
+    final DoubleColumn stopLossDelta;
+    final DoubleColumn stopTrailingPriceDelta;
+    final DoubleColumn realizedPnl;
+    final IntColumn strategy;
+
+    SymbolColumns(OffHeapStore store) {
+        int rows = store.symbolCapacity();
+        priceRing = store.doubles("symbol.priceRing", rows * RING_CAPACITY, 0.0);
+        volumeRing = store.longs("symbol.volumeRing", rows * RING_CAPACITY, 0L);
+        priceCount = store.longs("symbol.priceCount", rows, 0L);
+        volumeCount = store.longs("symbol.volumeCount", rows, 0L);
+        quoteSeq = store.longs("symbol.quoteSeq", rows, 0L);
+        lastPrice = store.doubles("symbol.lastPrice", rows, 0.0);
+        lastVolume = store.longs("symbol.lastVolume", rows, 0L);
+        bid = store.doubles("symbol.bid", rows, 0.0);
+        ask = store.doubles("symbol.ask", rows, 0.0);
+        bidSize = store.longs("symbol.bidSize", rows, 0L);
+        askSize = store.longs("symbol.askSize", rows, 0L);
+        lastTradePrice = store.doubles("symbol.lastTradePrice", rows, 0.0);
+        positionSeq = store.longs("symbol.positionSeq", rows, 0L);
+        position = store.ints("symbol.position", rows, 0);
+        entryPrice = store.doubles("symbol.entryPrice", rows, 0.0);
+        peakPrice = store.doubles("symbol.peakPrice", rows, 0.0);
+        stopLossDelta = store.doubles("symbol.stopLossDelta", rows, 0.0);
+        stopTrailingPriceDelta = store.doubles("symbol.stopTrailingPriceDelta", rows, 0.0);
+        realizedPnl = store.doubles("symbol.realizedPnl", rows, 0.0);
+        strategy = store.ints("symbol.strategy", rows, -1);
+    }
+
+    // A recycled symbol ID must not inherit the previous owner's quotes or position. Sequence counters keep counting.
+    void clear(int row) {
+        priceCount.setRelease(row, 0L);
+        volumeCount.setRelease(row, 0L);
+        lastPrice.set(row, 0.0);
+        lastVolume.set(row, 0L);
+        bid.set(row, 0.0);
+        ask.set(row, 0.0);
+        bidSize.set(row, 0L);
+        askSize.set(row, 0L);
+        lastTradePrice.set(row, 0.0);
+        position.set(row, 0);
+        entryPrice.set(row, 0.0);
+        peakPrice.set(row, 0.0);
+        stopLossDelta.set(row, 0.0);
+        stopTrailingPriceDelta.set(row, 0.0);
+        realizedPnl.set(row, 0.0);
+        strategy.setRelease(row, -1);
+    }
+}
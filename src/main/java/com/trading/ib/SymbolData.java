@@ -2,66 +2,364 @@ package com.trading.ib;
 
 import com.trading.strategy.StrategyType;
 
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.atomic.DoubleAdder;
+import java.lang.invoke.VarHandle;
 
+// A view over one row of the off-heap SymbolColumns. Market data fields have a single writer, the consumer
+// thread the symbol is pinned to. Position fields are written on fills and by the strategy loop. Both groups sit
+// behind a sequence counter: odd while a write is in flight, so readers retry instead of locking or seeing a torn pair.
 public class SymbolData {
 
-    private final ConcurrentLinkedDeque<Double> prices = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> volumes = new ConcurrentLinkedDeque<>();
+    public static final int HISTORY_LIMIT = 100;
+    private static final StrategyType[] STRATEGIES = StrategyType.values();
 
-    private final AtomicReference<StrategyType> strategyType = new AtomicReference<>();
-    private final AtomicReference<Double> lastPrice = new AtomicReference<>(0.0);
-    private final AtomicReference<Long> lastVolume = new AtomicReference<>(0L);
+    private final SymbolColumns c;
+    private final int row;
+    private final int ringBase;
 
-    private final AtomicInteger position = new AtomicInteger(0);
-    private final AtomicReference<Double> entryPrice = new AtomicReference<>(0.0);
-    private final DoubleAdder realizedPnl = new DoubleAdder();
-    private final AtomicReference<Double> peakPrice = new AtomicReference<>(0.0);
-    private final AtomicReference<Double> stopLossDelta = new AtomicReference<>(0.0);
-    private final AtomicReference<Double> stopTrailingPriceDelta = new AtomicReference<>(0.0);
+    SymbolData(SymbolColumns columns, int symbolId) {
+        this.c = columns;
+        this.row = symbolId;
+        this.ringBase = symbolId * SymbolColumns.RING_CAPACITY;
+    }
 
-    private static final int HISTORY_LIMIT = 100;
+    public int getSymbolId() { return row; }
 
+    // ===== QUOTE + HISTORY (consumer thread writes) =====
     public void addPrice(double price) {
-        prices.addLast(price);
-        lastPrice.set(price);
-        if (prices.size() > HISTORY_LIMIT) prices.pollFirst();
+        long n = c.priceCount.get(row);
+        c.priceRing.set(ringBase + (int) (n & SymbolColumns.RING_MASK), price);
+        c.priceCount.setRelease(row, n + 1);
+
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.lastPrice.set(row, price);
+        c.quoteSeq.setRelease(row, s + 2);
     }
 
     public void addVolume(long volume) {
-        volumes.addLast(volume);
-        lastVolume.set(volume);
-        if (volumes.size() > HISTORY_LIMIT) volumes.pollFirst();
+        long n = c.volumeCount.get(row);
+        c.volumeRing.set(ringBase + (int) (n & SymbolColumns.RING_MASK), volume);
+        c.volumeCount.setRelease(row, n + 1);
+
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.lastVolume.set(row, volume);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    // A tick-by-tick print: price and size land in one write section, so they are never paired across two trades.
+    public void addTrade(double price, long volume) {
+        long n = c.priceCount.get(row);
+        c.priceRing.set(ringBase + (int) (n & SymbolColumns.RING_MASK), price);
+        c.priceCount.setRelease(row, n + 1);
+        long m = c.volumeCount.get(row);
+        c.volumeRing.set(ringBase + (int) (m & SymbolColumns.RING_MASK), volume);
+        c.volumeCount.setRelease(row, m + 1);
+
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.lastPrice.set(row, price);
+        c.lastVolume.set(row, volume);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    // Unlike lastPrice, which CLOSE and other price ticks also move, this is only set by LAST ticks. 0 until the first.
+    public void setLastTradePrice(double price) { c.lastTradePrice.set(row, price); }
+    public double getLastTradePrice() { return c.lastTradePrice.get(row); }
+
+    // A tick-by-tick BidAsk update replaces both sides at once.
+    public void setQuote(double bid, double ask, long bidSize, long askSize) {
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.bid.set(row, bid);
+        c.ask.set(row, ask);
+        c.bidSize.set(row, bidSize);
+        c.askSize.set(row, askSize);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    // BID/ASK and their sizes share the quote sequence, so a reader never pairs a bid with a half-written ask.
+    public void setBid(double price) {
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.bid.set(row, price);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    public void setAsk(double price) {
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.ask.set(row, price);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    public void setBidSize(long size) {
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.bidSize.set(row, size);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    public void setAskSize(long size) {
+        long s = c.quoteSeq.get(row);
+        c.quoteSeq.setOpaque(row, s + 1);
+        VarHandle.storeStoreFence();
+        c.askSize.set(row, size);
+        c.quoteSeq.setRelease(row, s + 2);
+    }
+
+    public double getLastPrice() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            double p = c.lastPrice.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return p;
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getLastVolume() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            long v = c.lastVolume.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return v;
+            Thread.onSpinWait();
+        }
+    }
+
+    // 0 until the first BID or ASK tick.
+    public double getBid() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            double p = c.bid.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return p;
+            Thread.onSpinWait();
+        }
+    }
+
+    public double getAsk() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            double p = c.ask.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return p;
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getBidSize() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            long q = c.bidSize.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return q;
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getAskSize() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            long q = c.askSize.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return q;
+            Thread.onSpinWait();
+        }
+    }
+
+    // Ask minus bid from one consistent read; NaN until both sides are quoted or while the quote is crossed.
+    public double getSpread() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            double b = c.bid.get(row);
+            double a = c.ask.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return b > 0 && a >= b ? a - b : Double.NaN;
+            Thread.onSpinWait();
+        }
+    }
+
+    public double getMid() {
+        while (true) {
+            long s = c.quoteSeq.getAcquire(row);
+            double b = c.bid.get(row);
+            double a = c.ask.get(row);
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && s == c.quoteSeq.getOpaque(row)) return b > 0 && a >= b ? (a + b) / 2.0 : Double.NaN;
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getPriceCount() { return c.priceCount.getAcquire(row); }
+    public long getVolumeCount() { return c.volumeCount.getAcquire(row); }
+
+    // Copies up to dst.length of the most recent prices, oldest first, and returns how many were copied.
+    public int copyRecentPrices(double[] dst) {
+        while (true) {
+            long end = c.priceCount.getAcquire(row);
+            int n = (int) Math.min(Math.min(dst.length, HISTORY_LIMIT), end);
+            long start = end - n;
+            for (int i = 0; i < n; i++) dst[i] = c.priceRing.get(ringBase + (int) ((start + i) & SymbolColumns.RING_MASK));
+            VarHandle.loadLoadFence();
+            if (c.priceCount.getOpaque(row) - start <= SymbolColumns.RING_CAPACITY) return n;
+        }
+    }
+
+    public int copyRecentVolumes(long[] dst) {
+        while (true) {
+            long end = c.volumeCount.getAcquire(row);
+            int n = (int) Math.min(Math.min(dst.length, HISTORY_LIMIT), end);
+            long start = end - n;
+            for (int i = 0; i < n; i++) dst[i] = c.volumeRing.get(ringBase + (int) ((start + i) & SymbolColumns.RING_MASK));
+            VarHandle.loadLoadFence();
+            if (c.volumeCount.getOpaque(row) - start <= SymbolColumns.RING_CAPACITY) return n;
+        }
+    }
+
+    // ======================== POSITION ========================
+    private long beginPositionWrite() {
+        while (true) {
+            long s = c.positionSeq.get(row);
+            if ((s & 1) == 0 && c.positionSeq.compareAndSet(row, s, s + 1)) return s;
+            Thread.onSpinWait();
+        }
+    }
+
+    private void endPositionWrite(long s) {
+        c.positionSeq.setRelease(row, s + 2);
+    }
+
+    private long beginPositionRead() {
+        while (true) {
+            long s = c.positionSeq.getAcquire(row);
+            if ((s & 1) == 0) return s;
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean validatePositionRead(long s) {
+        VarHandle.loadLoadFence();
+        return c.positionSeq.getOpaque(row) == s;
+    }
+
+    public void setPosition(int pos) {
+        long s = beginPositionWrite();
+        c.position.set(row, pos);
+        endPositionWrite(s);
+    }
+
+    public int getPosition() {
+        while (true) {
+            long s = beginPositionRead();
+            int p = c.position.get(row);
+            if (validatePositionRead(s)) return p;
+        }
+    }
+
+    public void setEntryPrice(double price) {
+        long s = beginPositionWrite();
+        c.entryPrice.set(row, price);
+        endPositionWrite(s);
     }
 
-    public double getLastPrice() { return lastPrice.get(); }
-    public long getLastVolume() { return lastVolume.get(); }
+    public double getEntryPrice() {
+        while (true) {
+            long s = beginPositionRead();
+            double p = c.entryPrice.get(row);
+            if (validatePositionRead(s)) return p;
+        }
+    }
 
-    public Deque<Double> getPricesSnapshot() { return new ConcurrentLinkedDeque<>(prices); }
-    public Deque<Long> getVolumesSnapshot() { return new ConcurrentLinkedDeque<>(volumes); }
+    // Updates every position field in one write section so readers never see a fill half-applied.
+    public void setPositionState(int pos, double entry, double peak, double stopLoss, double stopTrailing) {
+        long s = beginPositionWrite();
+        c.position.set(row, pos);
+        c.entryPrice.set(row, entry);
+        c.peakPrice.set(row, peak);
+        c.stopLossDelta.set(row, stopLoss);
+        c.stopTrailingPriceDelta.set(row, stopTrailing);
+        endPositionWrite(s);
+    }
 
-    public void setPosition(int pos) { position.set(pos); }
-    public int getPosition() { return position.get(); }
+    // Position and entry read as one consistent pair.
+    public double getUnrealizedPnl(double price) {
+        while (true) {
+            long s = beginPositionRead();
+            int p = c.position.get(row);
+            double e = c.entryPrice.get(row);
+            if (validatePositionRead(s)) return p * (price - e);
+        }
+    }
 
-    public void setEntryPrice(double price) { entryPrice.set(price); }
-    public double getEntryPrice() { return entryPrice.get(); }
+    public void addRealizedPnl(double delta) {
+        long s = beginPositionWrite();
+        c.realizedPnl.set(row, c.realizedPnl.get(row) + delta);
+        endPositionWrite(s);
+    }
 
-    public void addRealizedPnl(double delta) { realizedPnl.add(delta); }
-    public double getRealizedPnl() { return realizedPnl.sum(); }
+    public double getRealizedPnl() {
+        while (true) {
+            long s = beginPositionRead();
+            double p = c.realizedPnl.get(row);
+            if (validatePositionRead(s)) return p;
+        }
+    }
 
-    public void setPeakPrice(double price) { peakPrice.set(price); }
-    public double getPeakPrice() { return peakPrice.get(); }
+    public void setPeakPrice(double price) {
+        long s = beginPositionWrite();
+        c.peakPrice.set(row, price);
+        endPositionWrite(s);
+    }
 
-    public void setStopLossDelta(double price) { stopLossDelta.set(price); }
-    public double getStopLossDelta() { return stopLossDelta.get(); }
+    public double getPeakPrice() {
+        while (true) {
+            long s = beginPositionRead();
+            double p = c.peakPrice.get(row);
+            if (validatePositionRead(s)) return p;
+        }
+    }
 
-    public void setStopTrailingPriceDelta(double price) { stopTrailingPriceDelta.set(price); }
-    public double getStopTrailingPriceDelta() { return stopTrailingPriceDelta.get(); }
+    public void setStopLossDelta(double price) {
+        long s = beginPositionWrite();
+        c.stopLossDelta.set(row, price);
+        endPositionWrite(s);
+    }
 
-    public void setStrategyType(StrategyType st) { strategyType.set(st); }
-    public StrategyType getStrategyType() { return strategyType.get(); }
-}
\ No newline at end of file
+    public double getStopLossDelta() {
+        while (true) {
+            long s = beginPositionRead();
+            double d = c.stopLossDelta.get(row);
+            if (validatePositionRead(s)) return d;
+        }
+    }
+
+    public void setStopTrailingPriceDelta(double price) {
+        long s = beginPositionWrite();
+        c.stopTrailingPriceDelta.set(row, price);
+        endPositionWrite(s);
+    }
+
+    public double getStopTrailingPriceDelta() {
+        while (true) {
+            long s = beginPositionRead();
+            double d = c.stopTrailingPriceDelta.get(row);
+            if (validatePositionRead(s)) return d;
+        }
+    }
+
+    public void setStrategyType(StrategyType st) { c.strategy.setRelease(row, st == null ? -1 : st.ordinal()); }
+
+    public StrategyType getStrategyType() {
+        int ordinal = c.strategy.getAcquire(row);
+        return ordinal < 0 ? null : STRATEGIES[ordinal];
+    }
+}
@@ -0,0 +1,72 @@
+package com.trading.ib;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class SymbolRegistry {
+
+    public static final int NO_ID = -1;
+
+    private final int capacity;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> symbols;
+    // Released IDs are handed out oldest-first so late callbacks for a dropped symbol rarely hit a new owner.
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private int highWaterMark = 0;
+
+    public SymbolRegistry(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Symbol capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.symbols = new AtomicReferenceArray<>(capacity);
+    }
+
+    public synchronized int register(String symbol) {
+        Integer existing = ids.get(symbol);
+        if (existing != null) return existing;
+
+        int id;
+        if (highWaterMark < capacity) id = highWaterMark++;
+        else if (!freeIds.isEmpty()) id = freeIds.pollFirst();
+        else throw new IllegalStateException("Symbol registry full (" + capacity + "), cannot register " + symbol);
+
+        symbols.set(id, symbol);
+        ids.put(symbol, id);
+        return id;
+    }
+
+    public synchronized int release(String symbol) {
+        Integer id = ids.remove(symbol);
+        if (id == null) return NO_ID;
+        symbols.set(id, null);
+        freeIds.addLast(id);
+        return id;
+    }
+
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? NO_ID : id;
+    }
+
+    public String symbolOf(int symbolId) {
+        if (symbolId < 0 || symbolId >= capacity) return null;
+        return symbols.get(symbolId);
+    }
+
+    public boolean isValid(int symbolId) {
+        return symbolId >= 0 && symbolId < capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int highWaterMark() {
+        return highWaterMark;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
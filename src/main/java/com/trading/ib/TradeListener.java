@@ -0,0 +1,5 @@
+package com.trading.ib;
+
+public interface TradeListener {
+    void onTrade(int symbolId, double price, long size, long timestampMillis);
+}
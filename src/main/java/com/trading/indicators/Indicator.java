@@ -9,5 +9,11 @@ public enum Indicator {
     RELVOL,
     TREND,
     VOLATILITY,
-    ORDERBOOK
+    ORDERBOOK,
+    OFI,
+    MICROPRICE,
+    QUEUE_IMBALANCE,
+    BOOK_PRESSURE,
+    VOLUME_DELTA,
+    TRADE_RATE
 }
\ No newline at end of file
@@ -0,0 +1,555 @@
+package com.trading.indicators;
+
+import com.trading.indicators.statistics.EwmaVariance;
+import com.trading.indicators.statistics.RollingMoments;
+import com.trading.indicators.statistics.RollingWindow;
+import com.trading.settings.Config;
+import com.trading.store.DoubleColumn;
+import com.trading.store.IntColumn;
+import com.trading.store.OffHeapStore;
+
+// Every bar indicator for one (symbol, timeframe) slot: a flat off-heap record plus the slot's rows in the windowed
+// statistics. A closed bar advances the stateful IndicatorNodes that are live for the slot; derived nodes are
+// evaluated on the first read after that close and cached until the next one. The slot is owned by whoever holds the
+// symbol lock: BarManager closes bars under it and SignalManager reads under it, so nothing here locks on its own.
+final class IndicatorKernel {
+
+    // ===== RECORD LAYOUT (doubles from Timeframe.slot(symbolId) * STRIDE) =====
+    private static final int BARS = 0;
+    private static final int EVALUATED = 1;
+    private static final int SMA_VALUE = 2;
+    private static final int BB_MULTIPLIER = 3;
+    private static final int BB_STDDEV_VALUE = 4;
+    private static final int BB_UPPER = 5;
+    private static final int BB_LOWER = 6;
+    private static final int MACD_SEEDED = 7;
+    private static final int MACD_FAST = 8;
+    private static final int MACD_SLOW = 9;
+    private static final int MACD_LINE_VALUE = 10;
+    private static final int MACD_SIGNAL_VALUE = 11;
+    private static final int MACD_HISTOGRAM = 12;
+    private static final int RSI_SEEDED = 13;
+    private static final int RSI_GAIN = 14;
+    private static final int RSI_LOSS = 15;
+    private static final int RSI_PREV_CLOSE = 16;
+    private static final int RSI_VALUE = 17;
+    private static final int TREND_SEEDED = 18;
+    private static final int TREND_HIGH = 19;
+    private static final int TREND_LOW = 20;
+    private static final int TREND_UP = 21;
+    private static final int TREND_DOWN = 22;
+    private static final int VOL_VALUE = 23;
+    private static final int RELVOL_VALUE = 24;
+    private static final int VWAP_PV = 25;
+    private static final int VWAP_VOLUME = 26;
+    private static final int VWAP_TYPICAL = 27;
+    private static final int VWAP_LAST_CLOSE = 28;
+    private static final int VWAP_VALUE = 29;
+    // Parameters the last close ran with, so provisional reads need no Config
+    private static final int MACD_FAST_PERIOD = 30;
+    private static final int MACD_SLOW_PERIOD = 31;
+    private static final int MACD_SIGNAL_PERIOD = 32;
+    private static final int RSI_PERIOD = 33;
+    private static final int TREND_PULLBACK = 34;
+    // EWMA weight of the volatility node, or 0 while it runs on the windowed moments
+    private static final int VOL_EWMA_ALPHA = 35;
+    private static final int STRIDE = 40;
+
+    private static final double NEUTRAL_RSI = 50.0;
+    private static final double NEUTRAL_RELATIVE_VOLUME = 1.0;
+
+    private static final IndicatorNode[] NODES = IndicatorNode.values();
+    private static final int STATEFUL;
+    private static final int NEEDS_CONFIG;
+
+    static {
+        int stateful = 0, needsConfig = 0;
+        for (IndicatorNode node : NODES) {
+            if (node.isStateful()) stateful |= node.mask();
+            if (node.needsConfig()) needsConfig |= node.mask();
+        }
+        STATEFUL = stateful;
+        NEEDS_CONFIG = needsConfig;
+    }
+
+    private final DoubleColumn state;
+    // IndicatorNode mask computed for each slot
+    private final IntColumn live;
+    // Each slot's closes, wide enough for the longest SMA, Bollinger or volatility period, and its bar volumes
+    private final RollingWindow closes;
+    private final RollingWindow volumes;
+    private final RollingMoments smaMoments;
+    private final RollingMoments bbMoments;
+    private final RollingMoments volatilityMoments;
+    private final RollingMoments volumeMoments;
+    private final EwmaVariance volatilityEwma;
+
+    IndicatorKernel(OffHeapStore store, int maxPricePeriod, int maxVolumePeriod) {
+        int slots = store.timeframeSlots();
+        this.state = store.doubles("indicators.state", slots * STRIDE, 0.0);
+        this.live = store.ints("indicators.live", slots, 0);
+        this.closes = new RollingWindow(store, "indicators.closes", slots, maxPricePeriod);
+        this.volumes = new RollingWindow(store, "indicators.volumes", slots, maxVolumePeriod);
+        this.smaMoments = new RollingMoments(store, "indicators.sma", closes, slots);
+        this.bbMoments = new RollingMoments(store, "indicators.bollinger", closes, slots);
+        this.volatilityMoments = new RollingMoments(store, "indicators.volatility", closes, slots);
+        this.volumeMoments = new RollingMoments(store, "indicators.volume", volumes, slots);
+        this.volatilityEwma = new EwmaVariance(store, "indicators.volatilityEwma", slots);
+        for (int slot = 0; slot < slots; slot++) reset(slot);
+    }
+
+    int liveNodes(int slot) {
+        return live.get(slot);
+    }
+
+    // Callers reset and replay the nodes that become live after changing what is live.
+    void setLiveNodes(int slot, int nodes) {
+        live.set(slot, nodes);
+    }
+
+    void reset(int slot) {
+        int r = slot * STRIDE;
+        state.fill(r, r + STRIDE, 0.0);
+        state.set(r + SMA_VALUE, Double.NaN);
+        state.set(r + BB_UPPER, Double.NaN);
+        state.set(r + BB_LOWER, Double.NaN);
+        state.set(r + RSI_VALUE, NEUTRAL_RSI);
+        state.set(r + RELVOL_VALUE, NEUTRAL_RELATIVE_VOLUME);
+        state.set(r + VWAP_LAST_CLOSE, Double.NaN);
+        closes.reset(slot);
+        volumes.reset(slot);
+        smaMoments.reset(slot);
+        bbMoments.reset(slot);
+        volatilityMoments.reset(slot);
+        volumeMoments.reset(slot);
+        volatilityEwma.reset(slot);
+    }
+
+    // Clears just the given nodes, leaving the rest of the slot as it is, and drops the derived values cached since
+    // the last close. A window node must only be cleared together with the moments over it.
+    void reset(int slot, int nodes) {
+        int r = slot * STRIDE;
+        if ((nodes & IndicatorNode.CLOSES.mask()) != 0) closes.reset(slot);
+        if ((nodes & IndicatorNode.SMA_MOMENTS.mask()) != 0) {
+            smaMoments.reset(slot);
+            state.set(r + SMA_VALUE, Double.NaN);
+        }
+        if ((nodes & IndicatorNode.BB_MOMENTS.mask()) != 0) {
+            bbMoments.reset(slot);
+            state.fill(r + BB_MULTIPLIER, r + BB_UPPER, 0.0);
+            state.set(r + BB_UPPER, Double.NaN);
+            state.set(r + BB_LOWER, Double.NaN);
+        }
+        if ((nodes & IndicatorNode.EMA_FAST.mask()) != 0) {
+            state.fill(r + MACD_SEEDED, r + MACD_HISTOGRAM + 1, 0.0);
+            state.fill(r + MACD_FAST_PERIOD, r + MACD_SIGNAL_PERIOD + 1, 0.0);
+        }
+        if ((nodes & IndicatorNode.RSI_AVERAGES.mask()) != 0) {
+            state.fill(r + RSI_SEEDED, r + RSI_VALUE, 0.0);
+            state.set(r + RSI_VALUE, NEUTRAL_RSI);
+            state.set(r + RSI_PERIOD, 0.0);
+        }
+        if ((nodes & IndicatorNode.TREND.mask()) != 0) {
+            state.fill(r + TREND_SEEDED, r + TREND_DOWN + 1, 0.0);
+            state.set(r + TREND_PULLBACK, 0.0);
+        }
+        if ((nodes & IndicatorNode.VOLATILITY_MOMENTS.mask()) != 0) {
+            volatilityMoments.reset(slot);
+            volatilityEwma.reset(slot);
+            state.set(r + VOL_VALUE, 0.0);
+            state.set(r + VOL_EWMA_ALPHA, 0.0);
+        }
+        if ((nodes & IndicatorNode.VOLUMES.mask()) != 0) volumes.reset(slot);
+        if ((nodes & IndicatorNode.VOLUME_MOMENTS.mask()) != 0) {
+            volumeMoments.reset(slot);
+            state.set(r + RELVOL_VALUE, NEUTRAL_RELATIVE_VOLUME);
+        }
+        if ((nodes & IndicatorNode.VWAP_SUMS.mask()) != 0) {
+            state.fill(r + VWAP_PV, r + VWAP_VALUE + 1, 0.0);
+            state.set(r + VWAP_LAST_CLOSE, Double.NaN);
+        }
+        state.set(r + EVALUATED, -1);
+    }
+
+    // Stateful nodes that compute differently under the two configs. Without a config the parameterised nodes do not
+    // advance at all, so gaining or losing one changes every one of them.
+    static int nodesChangedBy(Config previous, Config next) {
+        if (previous == null || next == null) return previous == next ? 0 : STATEFUL & NEEDS_CONFIG;
+        int nodes = 0;
+        if (previous.smaPeriod() != next.smaPeriod()) nodes |= IndicatorNode.SMA_MOMENTS.mask();
+        if (previous.bbPeriod() != next.bbPeriod() || previous.bbMultiplier() != next.bbMultiplier()) {
+            nodes |= IndicatorNode.BB_MOMENTS.mask();
+        }
+        if (previous.macdFast() != next.macdFast() || previous.macdSlow() != next.macdSlow()
+                || previous.macdSignal() != next.macdSignal()) {
+            nodes |= IndicatorNode.EMA_FAST.mask() | IndicatorNode.EMA_SLOW.mask()
+                    | IndicatorNode.MACD_LINE.mask() | IndicatorNode.MACD_SIGNAL.mask();
+        }
+        if (previous.rsiPeriod() != next.rsiPeriod()) nodes |= IndicatorNode.RSI_AVERAGES.mask();
+        if (previous.pullbackPercent() != next.pullbackPercent()) nodes |= IndicatorNode.TREND.mask();
+        if (previous.volatilityPeriod() != next.volatilityPeriod() || previous.volatilityEwma() != next.volatilityEwma()) {
+            nodes |= IndicatorNode.VOLATILITY_MOMENTS.mask();
+        }
+        if (previous.relVolPeriod() != next.relVolPeriod()) nodes |= IndicatorNode.VOLUME_MOMENTS.mask();
+        return nodes;
+    }
+
+    // Advances the live stateful nodes by one closed bar; derived values go stale until the next read.
+    void update(int slot, double high, double low, double close, long volume, Config cg) {
+        if (advance(slot, live.get(slot), high, low, close, volume, cg)) {
+            int r = slot * STRIDE;
+            state.set(r + BARS, state.get(r + BARS) + 1);
+        }
+    }
+
+    // Advances only the given live nodes by one bar of the slot's history, after reset(slot, nodes). The windows only
+    // advance if they were reset too; moments over a window that was kept are recomputed by rebuildMoments instead.
+    // EWMA volatility reads the close rather than the window, so it replays either way.
+    void replay(int slot, int nodes, double high, double low, double close, long volume, Config cg) {
+        advance(slot, live.get(slot) & nodes, high, low, close, volume, cg);
+    }
+
+    // Recomputes the given moments nodes from the windows they read. Moments replayed along with their window are
+    // already current and are left alone.
+    void rebuildMoments(int slot, int nodes, Config cg) {
+        nodes &= live.get(slot);
+        if (cg == null) return;
+        if ((nodes & IndicatorNode.CLOSES.mask()) != 0) {
+            nodes &= ~(IndicatorNode.SMA_MOMENTS.mask() | IndicatorNode.BB_MOMENTS.mask() | IndicatorNode.VOLATILITY_MOMENTS.mask());
+        }
+        if ((nodes & IndicatorNode.VOLUMES.mask()) != 0) nodes &= ~IndicatorNode.VOLUME_MOMENTS.mask();
+        if ((nodes & IndicatorNode.SMA_MOMENTS.mask()) != 0) smaMoments.rebuild(slot, cg.smaPeriod());
+        if ((nodes & IndicatorNode.BB_MOMENTS.mask()) != 0) {
+            bbMoments.rebuild(slot, cg.bbPeriod());
+            state.set(slot * STRIDE + BB_MULTIPLIER, cg.bbMultiplier());
+        }
+        if ((nodes & IndicatorNode.VOLATILITY_MOMENTS.mask()) != 0 && !cg.volatilityEwma()) {
+            volatilityMoments.rebuild(slot, cg.volatilityPeriod());
+        }
+        if ((nodes & IndicatorNode.VOLUME_MOMENTS.mask()) != 0) volumeMoments.rebuild(slot, cg.relVolPeriod());
+    }
+
+    private boolean advance(int slot, int nodes, double high, double low, double close, long volume, Config cg) {
+        nodes &= STATEFUL;
+        if (cg == null) nodes &= ~NEEDS_CONFIG;
+        if (nodes == 0) return false;
+        int r = slot * STRIDE;
+
+        if ((nodes & IndicatorNode.CLOSES.mask()) != 0) {
+            closes.push(slot, close);
+            if ((nodes & IndicatorNode.SMA_MOMENTS.mask()) != 0) smaMoments.add(slot, cg.smaPeriod());
+            if ((nodes & IndicatorNode.BB_MOMENTS.mask()) != 0) {
+                bbMoments.add(slot, cg.bbPeriod());
+                state.set(r + BB_MULTIPLIER, cg.bbMultiplier());
+            }
+            if ((nodes & IndicatorNode.VOLATILITY_MOMENTS.mask()) != 0 && !cg.volatilityEwma()) {
+                volatilityMoments.add(slot, cg.volatilityPeriod());
+            }
+        }
+        if ((nodes & IndicatorNode.VOLATILITY_MOMENTS.mask()) != 0 && cg.volatilityEwma()) {
+            double alpha = 2.0 / (cg.volatilityPeriod() + 1);
+            volatilityEwma.add(slot, close, alpha);
+            state.set(r + VOL_EWMA_ALPHA, alpha);
+        }
+        if ((nodes & IndicatorNode.VOLUMES.mask()) != 0) {
+            volumes.push(slot, volume);
+            if ((nodes & IndicatorNode.VOLUME_MOMENTS.mask()) != 0) volumeMoments.add(slot, cg.relVolPeriod());
+        }
+        if ((nodes & IndicatorNode.EMA_FAST.mask()) != 0) advanceMacd(r, close, cg.macdFast(), cg.macdSlow(), cg.macdSignal());
+        if ((nodes & IndicatorNode.RSI_AVERAGES.mask()) != 0) advanceRsi(r, close, cg.rsiPeriod());
+        if ((nodes & IndicatorNode.TREND.mask()) != 0) advanceTrend(r, close, cg.pullbackPercent());
+        if ((nodes & IndicatorNode.VWAP_SUMS.mask()) != 0) advanceVwapSums(r, high, low, close, volume);
+        return true;
+    }
+
+    // Computes the live derived nodes once per closed bar, on the first read after it.
+    private int evaluate(int slot) {
+        int r = slot * STRIDE;
+        double bars = state.get(r + BARS);
+        if (state.get(r + EVALUATED) == bars) return r;
+        int nodes = live.get(slot) & ~STATEFUL;
+        if ((nodes & IndicatorNode.SMA.mask()) != 0) evaluateSma(slot, r);
+        if ((nodes & IndicatorNode.BB_STDDEV.mask()) != 0) evaluateBollinger(slot, r);
+        if ((nodes & IndicatorNode.MACD.mask()) != 0) state.set(r + MACD_HISTOGRAM, state.get(r + MACD_LINE_VALUE) - state.get(r + MACD_SIGNAL_VALUE));
+        if ((nodes & IndicatorNode.RSI.mask()) != 0) evaluateRsi(r);
+        if ((nodes & IndicatorNode.VOLATILITY.mask()) != 0) evaluateVolatility(slot, r);
+        if ((nodes & IndicatorNode.RELVOL.mask()) != 0) evaluateRelativeVolume(slot, r);
+        if ((nodes & IndicatorNode.VWAP.mask()) != 0) evaluateVwap(r);
+        state.set(r + EVALUATED, bars);
+        return r;
+    }
+
+    // ===== SMA / BOLLINGER (windowed moments over the shared closes) =====
+    private void evaluateSma(int slot, int r) {
+        state.set(r + SMA_VALUE, smaMoments.isFull(slot) ? smaMoments.mean(slot) : Double.NaN);
+    }
+
+    private void evaluateBollinger(int slot, int r) {
+        if (!bbMoments.isFull(slot)) {
+            state.set(r + BB_UPPER, Double.NaN);
+            state.set(r + BB_LOWER, Double.NaN);
+            return;
+        }
+        double mean = bbMoments.mean(slot);
+        double stdDev = Math.sqrt(bbMoments.populationVariance(slot));
+        double width = state.get(r + BB_MULTIPLIER) * stdDev;
+        state.set(r + BB_STDDEV_VALUE, stdDev);
+        state.set(r + BB_UPPER, mean + width);
+        state.set(r + BB_LOWER, mean - width);
+    }
+
+    boolean isSmaUpTrend(int slot) {
+        int r = evaluate(slot);
+        double sma = state.get(r + SMA_VALUE);
+        return !Double.isNaN(sma) && lastClose(slot) < sma;
+    }
+
+    boolean isSmaDownTrend(int slot) {
+        int r = evaluate(slot);
+        double sma = state.get(r + SMA_VALUE);
+        return !Double.isNaN(sma) && lastClose(slot) > sma;
+    }
+
+    boolean isAboveUpperBand(int slot) {
+        int r = evaluate(slot);
+        double upper = state.get(r + BB_UPPER);
+        return !Double.isNaN(upper) && lastClose(slot) > upper;
+    }
+
+    boolean isBelowLowerBand(int slot) {
+        int r = evaluate(slot);
+        double lower = state.get(r + BB_LOWER);
+        return !Double.isNaN(lower) && lastClose(slot) < lower;
+    }
+
+    private double lastClose(int slot) {
+        return closes.newest(slot);
+    }
+
+    // ===== MACD (EMA_FAST, EMA_SLOW -> MACD_LINE -> MACD_SIGNAL) =====
+    private void advanceMacd(int r, double price, int fastPeriod, int slowPeriod, int signalPeriod) {
+        boolean hasState = state.get(r + MACD_SEEDED) != 0;
+        double fast = hasState ? state.get(r + MACD_FAST) : price;
+        double slow = hasState ? state.get(r + MACD_SLOW) : price;
+        fast += 2.0 / (fastPeriod + 1) * (price - fast);
+        slow += 2.0 / (slowPeriod + 1) * (price - slow);
+
+        double line = fast - slow;
+        double signal = hasState ? state.get(r + MACD_SIGNAL_VALUE) : line;
+        signal += 2.0 / (signalPeriod + 1) * (line - signal);
+
+        state.set(r + MACD_FAST, fast);
+        state.set(r + MACD_SLOW, slow);
+        state.set(r + MACD_LINE_VALUE, line);
+        state.set(r + MACD_SIGNAL_VALUE, signal);
+        state.set(r + MACD_FAST_PERIOD, fastPeriod);
+        state.set(r + MACD_SLOW_PERIOD, slowPeriod);
+        state.set(r + MACD_SIGNAL_PERIOD, signalPeriod);
+        state.set(r + MACD_SEEDED, 1);
+    }
+
+    double macdHistogram(int slot) { return state.get(evaluate(slot) + MACD_HISTOGRAM); }
+
+    // ===== RSI (Wilder smoothing of close-to-close changes) =====
+    private void advanceRsi(int r, double close, int period) {
+        boolean hasState = state.get(r + RSI_SEEDED) != 0;
+        double change = hasState ? close - state.get(r + RSI_PREV_CLOSE) : 0.0;
+        double gain = Math.max(change, 0);
+        double loss = Math.max(-change, 0);
+        state.set(r + RSI_GAIN, ((hasState ? state.get(r + RSI_GAIN) : gain) * (period - 1) + gain) / period);
+        state.set(r + RSI_LOSS, ((hasState ? state.get(r + RSI_LOSS) : loss) * (period - 1) + loss) / period);
+        state.set(r + RSI_PREV_CLOSE, close);
+        state.set(r + RSI_PERIOD, period);
+        state.set(r + RSI_SEEDED, 1);
+    }
+
+    private void evaluateRsi(int r) {
+        if (state.get(r + RSI_SEEDED) == 0) {
+            state.set(r + RSI_VALUE, NEUTRAL_RSI);
+            return;
+        }
+        double avgLoss = state.get(r + RSI_LOSS);
+        double rs = avgLoss == 0 ? Double.POSITIVE_INFINITY : state.get(r + RSI_GAIN) / avgLoss;
+        state.set(r + RSI_VALUE, 100 - (100 / (1.0 + rs)));
+    }
+
+    double rsi(int slot) { return state.get(evaluate(slot) + RSI_VALUE); }
+
+    // ===== TREND =====
+    private void advanceTrend(int r, double price, double pullbackPct) {
+        boolean hasState = state.get(r + TREND_SEEDED) != 0;
+        boolean up = upTrendAfter(r, price, pullbackPct);
+        boolean down = downTrendAfter(r, price, pullbackPct);
+        state.set(r + TREND_HIGH, hasState ? Math.max(state.get(r + TREND_HIGH), price) : price);
+        state.set(r + TREND_UP, up ? 1 : 0);
+        state.set(r + TREND_LOW, hasState ? Math.min(state.get(r + TREND_LOW), price) : price);
+        state.set(r + TREND_DOWN, down ? 1 : 0);
+        state.set(r + TREND_PULLBACK, pullbackPct);
+        state.set(r + TREND_SEEDED, 1);
+    }
+
+    // A new high restores the uptrend; a pullback of more than pullbackPct from the high ends it.
+    private boolean upTrendAfter(int r, double price, double pullbackPct) {
+        if (state.get(r + TREND_SEEDED) == 0) return true;
+        double high = state.get(r + TREND_HIGH);
+        if (price > high) return true;
+        return state.get(r + TREND_UP) != 0 && !(high > 0 && (high - price) / high * 100.0 > pullbackPct);
+    }
+
+    private boolean downTrendAfter(int r, double price, double pullbackPct) {
+        if (state.get(r + TREND_SEEDED) == 0) return true;
+        double low = state.get(r + TREND_LOW);
+        if (price < low) return true;
+        return state.get(r + TREND_DOWN) != 0 && !(low > 0 && (price - low) / low * 100.0 > pullbackPct);
+    }
+
+    boolean isUpwardTrend(int slot) { return state.get(slot * STRIDE + TREND_UP) != 0; }
+    boolean isDownwardTrend(int slot) { return state.get(slot * STRIDE + TREND_DOWN) != 0; }
+
+    // ===== VOLATILITY (sample standard deviation of the closes in the window, or their EWMA standard deviation) =====
+    private void evaluateVolatility(int slot, int r) {
+        if (state.get(r + VOL_EWMA_ALPHA) != 0) {
+            state.set(r + VOL_VALUE, Math.sqrt(volatilityEwma.variance(slot)));
+            return;
+        }
+        state.set(r + VOL_VALUE, volatilityMoments.size(slot) < 2 ? 0.0 : Math.sqrt(volatilityMoments.sampleVariance(slot)));
+    }
+
+    double volatility(int slot) { return state.get(evaluate(slot) + VOL_VALUE); }
+
+    // ===== RELATIVE VOLUME (last bar's volume over the window's mean) =====
+    private void evaluateRelativeVolume(int slot, int r) {
+        if (volumeMoments.size(slot) == 0) {
+            state.set(r + RELVOL_VALUE, NEUTRAL_RELATIVE_VOLUME);
+            return;
+        }
+        double avg = volumeMoments.mean(slot);
+        state.set(r + RELVOL_VALUE, avg == 0.0 ? 0.0 : volumes.newest(slot) / avg);
+    }
+
+    double relativeVolume(int slot) { return state.get(evaluate(slot) + RELVOL_VALUE); }
+
+    // ===== VWAP =====
+    private void advanceVwapSums(int r, double high, double low, double close, double volume) {
+        double typicalPrice = (high + low + close) / 3.0;
+        state.set(r + VWAP_PV, state.get(r + VWAP_PV) + typicalPrice * volume);
+        state.set(r + VWAP_VOLUME, state.get(r + VWAP_VOLUME) + volume);
+        state.set(r + VWAP_TYPICAL, typicalPrice);
+        state.set(r + VWAP_LAST_CLOSE, close);
+    }
+
+    private void evaluateVwap(int r) {
+        double vol = state.get(r + VWAP_VOLUME);
+        state.set(r + VWAP_VALUE, vol == 0.0 ? state.get(r + VWAP_TYPICAL) : state.get(r + VWAP_PV) / vol);
+    }
+
+    boolean isAboveVwap(int slot) {
+        int r = evaluate(slot);
+        double last = state.get(r + VWAP_LAST_CLOSE);
+        return !Double.isNaN(last) && last < state.get(r + VWAP_VALUE);
+    }
+
+    boolean isBelowVwap(int slot) {
+        int r = evaluate(slot);
+        double last = state.get(r + VWAP_LAST_CLOSE);
+        return !Double.isNaN(last) && last > state.get(r + VWAP_VALUE);
+    }
+
+    // ===== PROVISIONAL (committed state plus the open bar, as if it closed now; nothing is written) =====
+    // A node that is not live for the slot has no state to extend, so its committed value is returned.
+    private boolean isLive(int slot, IndicatorNode node) {
+        return (live.get(slot) & node.mask()) != 0;
+    }
+
+    boolean isSmaUpTrend(int slot, double close) {
+        if (!isLive(slot, IndicatorNode.SMA_MOMENTS)) return isSmaUpTrend(slot);
+        return smaMoments.isFullWith(slot) && close < smaMoments.meanWith(slot, close);
+    }
+
+    boolean isSmaDownTrend(int slot, double close) {
+        if (!isLive(slot, IndicatorNode.SMA_MOMENTS)) return isSmaDownTrend(slot);
+        return smaMoments.isFullWith(slot) && close > smaMoments.meanWith(slot, close);
+    }
+
+    boolean isAboveUpperBand(int slot, double close) {
+        if (!isLive(slot, IndicatorNode.BB_MOMENTS)) return isAboveUpperBand(slot);
+        return bbMoments.isFullWith(slot) && close > bbMoments.meanWith(slot, close) + bandWidthWith(slot, close);
+    }
+
+    boolean isBelowLowerBand(int slot, double close) {
+        if (!isLive(slot, IndicatorNode.BB_MOMENTS)) return isBelowLowerBand(slot);
+        return bbMoments.isFullWith(slot) && close < bbMoments.meanWith(slot, close) - bandWidthWith(slot, close);
+    }
+
+    private double bandWidthWith(int slot, double close) {
+        return state.get(slot * STRIDE + BB_MULTIPLIER) * Math.sqrt(bbMoments.populationVarianceWith(slot, close));
+    }
+
+    // Before the first close there is no period to extend with, so an unseeded node reads as committed.
+    double macdHistogram(int slot, double close) {
+        int r = slot * STRIDE;
+        if (!isLive(slot, IndicatorNode.MACD_SIGNAL) || state.get(r + MACD_SEEDED) == 0) return macdHistogram(slot);
+        double fast = state.get(r + MACD_FAST);
+        double slow = state.get(r + MACD_SLOW);
+        fast += 2.0 / (state.get(r + MACD_FAST_PERIOD) + 1) * (close - fast);
+        slow += 2.0 / (state.get(r + MACD_SLOW_PERIOD) + 1) * (close - slow);
+        double line = fast - slow;
+        double signal = state.get(r + MACD_SIGNAL_VALUE);
+        signal += 2.0 / (state.get(r + MACD_SIGNAL_PERIOD) + 1) * (line - signal);
+        return line - signal;
+    }
+
+    double rsi(int slot, double close) {
+        int r = slot * STRIDE;
+        if (!isLive(slot, IndicatorNode.RSI_AVERAGES) || state.get(r + RSI_SEEDED) == 0) return rsi(slot);
+        double period = state.get(r + RSI_PERIOD);
+        double change = close - state.get(r + RSI_PREV_CLOSE);
+        double avgGain = (state.get(r + RSI_GAIN) * (period - 1) + Math.max(change, 0)) / period;
+        double avgLoss = (state.get(r + RSI_LOSS) * (period - 1) + Math.max(-change, 0)) / period;
+        double rs = avgLoss == 0 ? Double.POSITIVE_INFINITY : avgGain / avgLoss;
+        return 100 - (100 / (1.0 + rs));
+    }
+
+    boolean isUpwardTrend(int slot, double close) {
+        int r = slot * STRIDE;
+        if (!isLive(slot, IndicatorNode.TREND) || state.get(r + TREND_SEEDED) == 0) return isUpwardTrend(slot);
+        return upTrendAfter(r, close, state.get(r + TREND_PULLBACK));
+    }
+
+    boolean isDownwardTrend(int slot, double close) {
+        int r = slot * STRIDE;
+        if (!isLive(slot, IndicatorNode.TREND) || state.get(r + TREND_SEEDED) == 0) return isDownwardTrend(slot);
+        return downTrendAfter(r, close, state.get(r + TREND_PULLBACK));
+    }
+
+    double volatility(int slot, double close) {
+        if (!isLive(slot, IndicatorNode.VOLATILITY_MOMENTS)) return volatility(slot);
+        double alpha = state.get(slot * STRIDE + VOL_EWMA_ALPHA);
+        if (alpha != 0) return Math.sqrt(volatilityEwma.varianceWith(slot, close, alpha));
+        return volatilityMoments.sizeWith(slot) < 2 ? 0.0 : Math.sqrt(volatilityMoments.sampleVarianceWith(slot, close));
+    }
+
+    // The open bar's volume so far against the window, so it reads low early in the bar.
+    double relativeVolume(int slot, long volume) {
+        if (!isLive(slot, IndicatorNode.VOLUME_MOMENTS)) return relativeVolume(slot);
+        double avg = volumeMoments.meanWith(slot, volume);
+        return avg == 0.0 ? 0.0 : volume / avg;
+    }
+
+    boolean isAboveVwap(int slot, double high, double low, double close, long volume) {
+        if (!isLive(slot, IndicatorNode.VWAP_SUMS)) return isAboveVwap(slot);
+        return close < vwapWith(slot, high, low, close, volume);
+    }
+
+    boolean isBelowVwap(int slot, double high, double low, double close, long volume) {
+        if (!isLive(slot, IndicatorNode.VWAP_SUMS)) return isBelowVwap(slot);
+        return close > vwapWith(slot, high, low, close, volume);
+    }
+
+    private double vwapWith(int slot, double high, double low, double close, long volume) {
+        int r = slot * STRIDE;
+        double typicalPrice = (high + low + close) / 3.0;
+        double vol = state.get(r + VWAP_VOLUME) + volume;
+        return vol == 0.0 ? typicalPrice : (state.get(r + VWAP_PV) + typicalPrice * volume) / vol;
+    }
+}
@@ -1,101 +1,257 @@
 package com.trading.indicators;
 
 import com.trading.datafeed.Timeframe;
-import com.trading.datafeed.OHLCV;
+import com.trading.datafeed.BarManager;
+import com.trading.datafeed.BarSeries;
+import com.trading.datafeed.BarView;
 import com.trading.ib.IBConnector;
 import com.trading.ib.LockManager;
 import com.trading.ib.OrderBookListener;
-import com.trading.indicators.averages.*;
-import com.trading.indicators.momentum.*;
+import com.trading.ib.SymbolRegistry;
+import com.trading.ib.TradeListener;
 import com.trading.indicators.orderbook.OrderBookIndicator;
-import com.trading.indicators.priceanalysis.*;
+import com.trading.indicators.tape.TradeTape;
+import com.trading.settings.Config;
 import com.trading.settings.ConfigThreshold;
+import com.trading.store.OffHeapStore;
 import com.trading.strategy.StrategyType;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.ToIntFunction;
 
-public class IndicatorManager implements OrderBookListener {
+public class IndicatorManager implements OrderBookListener, TradeListener {
 
     private final ConfigThreshold config;
     private final LockManager lockManager;
+    private final SymbolRegistry symbolRegistry;
+    private final BarManager bars;
 
-    private final TrendIndicator trend;
-    private final VolatilityIndicator volatility;
-    private final MACDIndicator macd;
-    private final SMAIndicator sma;
-    private final BollingerBandsIndicator bollingerBand;
-    private final RSIIndicator rsi;
+    private final IndicatorKernel kernel;
     private final OrderBookIndicator orderBook;
-    private final VWAPIndicator vwap;
-    private final RelativeVolumeIndicator relVolume;
+    private final TradeTape tape;
 
-    private final Map<String, Set<Timeframe>> firstBarsCompleted = new ConcurrentHashMap<>();
+    // Bitmask of Timeframe.mask() per symbol ID
+    private final AtomicIntegerArray firstBarsCompleted;
+    // The strategy each symbol's live nodes were built for; guarded by the symbol lock
+    private final StrategyType[] appliedStrategies;
 
-    public IndicatorManager(ConfigThreshold config, IBConnector ib, LockManager lockManager) {
+    public IndicatorManager(ConfigThreshold config, IBConnector ib, LockManager lockManager, BarManager bars) {
         this.config = config;
         this.lockManager = lockManager;
-        this.trend = new TrendIndicator(lockManager);
-        this.volatility = new VolatilityIndicator(lockManager);
-        this.macd = new MACDIndicator(lockManager);
-        this.sma = new SMAIndicator(lockManager);
-        this.bollingerBand = new BollingerBandsIndicator(lockManager);
-        this.rsi = new RSIIndicator(lockManager);
-        this.orderBook = new OrderBookIndicator(lockManager);
-        this.vwap = new VWAPIndicator(lockManager);
-        this.relVolume = new RelativeVolumeIndicator(lockManager);
+        this.bars = bars;
+        this.symbolRegistry = ib.getSymbolRegistry();
+        OffHeapStore store = ib.getStore();
+        this.kernel = new IndicatorKernel(store,
+                Math.max(maxPeriod(config, Config::smaPeriod),
+                        Math.max(maxPeriod(config, Config::bbPeriod), maxPeriod(config, Config::volatilityPeriod))),
+                maxPeriod(config, Config::relVolPeriod));
+        this.orderBook = new OrderBookIndicator(lockManager, store,
+                Math.max(maxPeriod(config, Config::ofiWindow), ConfigThreshold.DEFAULT_EVENT_WINDOW));
+        this.tape = new TradeTape(ib, lockManager,
+                Math.max(maxPeriod(config, Config::tapeWindow), ConfigThreshold.DEFAULT_TAPE_WINDOW));
+        this.firstBarsCompleted = new AtomicIntegerArray(symbolRegistry.capacity());
+        this.appliedStrategies = new StrategyType[symbolRegistry.capacity()];
 
         ib.addOrderBookListener(this);
+        ib.addTradeListener(this);
     }
 
-    public void updateOnBarClose(String symbol, OHLCV bar, Timeframe tf, Set<Indicator> indicatorsToUpdate, StrategyType strategyType) {
-        if (bar == null || indicatorsToUpdate == null || strategyType == null || tf == Timeframe.TICK) return;
+    // Runs inside BarManager's bar close, under the symbol lock, and advances whatever applyStrategy made live.
+    public void updateOnBarClose(int symbolId, BarView bar, Timeframe tf, StrategyType strategyType) {
+        if (bar == null || strategyType == null || tf == Timeframe.TICK) return;
 
-        var cg = config.getConfig(strategyType, tf);
+        kernel.update(tf.slot(symbolId), bar.high(), bar.low(), bar.close(), bar.volume(), config.getConfig(strategyType, tf));
 
-        if (indicatorsToUpdate.contains(Indicator.TREND)) trend.update(symbol, bar.close, tf, cg.pullbackPercent());
-        if (indicatorsToUpdate.contains(Indicator.VOLATILITY)) volatility.update(symbol, bar.close, tf);
-        if (indicatorsToUpdate.contains(Indicator.MACD)) macd.update(symbol, bar.close, tf, cg.macdFast(), cg.macdSlow(), cg.macdSignal());
-        if (indicatorsToUpdate.contains(Indicator.SMA)) sma.update(symbol, bar.close, tf, cg.smaPeriod());
-        if (indicatorsToUpdate.contains(Indicator.BOLLINGER)) bollingerBand.update(symbol, bar.close, tf, cg.bbPeriod(), cg.bbMultiplier());
-        if (indicatorsToUpdate.contains(Indicator.RSI)) rsi.update(symbol, bar.close, bar.close, tf, cg.rsiPeriod());
-        if (indicatorsToUpdate.contains(Indicator.RELVOL)) relVolume.update(symbol, bar.volume, tf);
-        if (indicatorsToUpdate.contains(Indicator.VWAP)) vwap.update(symbol, bar, tf);
+        int mask = tf.mask();
+        if ((firstBarsCompleted.get(symbolId) & mask) == 0) firstBarsCompleted.getAndAccumulate(symbolId, mask, (a, b) -> a | b);
+    }
+
+    // Windowed indicators size their off-heap rings for the longest period any strategy uses.
+    private static int maxPeriod(ConfigThreshold config, ToIntFunction<Config> period) {
+        int max = 1;
+        for (StrategyType strategy : StrategyType.values()) {
+            for (Timeframe tf : Timeframe.values()) {
+                Config cg = config.getConfig(strategy, tf);
+                if (cg != null) max = Math.max(max, period.applyAsInt(cg));
+            }
+        }
+        return max;
+    }
+
+    // Makes the symbol's live indicator nodes follow strategy. Only the nodes that become live, or whose own parameters
+    // differ under the new config, are rebuilt from the closed bars BarManager still holds, so indicators the new
+    // strategy reads are warm at once. Nodes it no longer reads are cleared and stop being computed; the rest, shared
+    // windows included, carry on untouched.
+    public void applyStrategy(int symbolId, StrategyType strategy) {
+        lockManager.lock(symbolId);
+        try {
+            StrategyType previous = appliedStrategies[symbolId];
+            for (Timeframe tf : Timeframe.getBarTimeframes()) {
+                int slot = tf.slot(symbolId);
+                int nodes = IndicatorNode.closureOf(strategy.getIndicatorsFor(tf));
+                int was = kernel.liveNodes(slot);
+                Config cg = config.getConfig(strategy, tf);
+                int stale = nodes & ~was;
+                if (previous != null) stale |= nodes & IndicatorKernel.nodesChangedBy(config.getConfig(previous, tf), cg);
+                int dropped = was & ~nodes;
+                if ((stale | dropped) == 0) continue;
+
+                kernel.reset(slot, stale | dropped);
+                kernel.setLiveNodes(slot, nodes);
+                BarSeries history = bars.getSeries(tf);
+                int size = history.size(symbolId);
+                for (int ago = size - 1; ago >= 0; ago--) {
+                    kernel.replay(slot, stale, history.high(symbolId, ago), history.low(symbolId, ago),
+                            history.close(symbolId, ago), history.volume(symbolId, ago), cg);
+                }
+                kernel.rebuildMoments(slot, stale, cg);
+                int mask = tf.mask();
+                if (size > 0) firstBarsCompleted.getAndAccumulate(symbolId, mask, (a, b) -> a | b);
+                else firstBarsCompleted.getAndAccumulate(symbolId, ~mask, (a, b) -> a & b);
+            }
+            appliedStrategies[symbolId] = strategy;
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
 
-        firstBarsCompleted.computeIfAbsent(symbol, k -> ConcurrentHashMap.newKeySet()).add(tf);
+    public boolean AnyFirstBarIncomplete(int symbolId, StrategyType strategy) {
+        int required = strategy.getBarTimeframeMask();
+        return (firstBarsCompleted.get(symbolId) & required) != required;
     }
 
-    public boolean AnyFirstBarIncomplete(String symbol, StrategyType strategy) {
-        Set<Timeframe> completed = firstBarsCompleted.getOrDefault(symbol, Set.of());
-        return !strategy.getTimeframeIndicators().keySet().stream()
-                .filter(tf -> tf != Timeframe.TICK)
-                .allMatch(completed::contains);
+    public void resetSymbol(int symbolId) {
+        lockManager.lock(symbolId);
+        try {
+            for (Timeframe tf : Timeframe.getBarTimeframes()) {
+                kernel.reset(tf.slot(symbolId));
+                kernel.setLiveNodes(tf.slot(symbolId), 0);
+            }
+            appliedStrategies[symbolId] = null;
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+        orderBook.reset(symbolId);
+        tape.reset(symbolId);
+        firstBarsCompleted.set(symbolId, 0);
     }
 
     public LockManager getLockManager(){
         return lockManager;
     }
 
+    public SymbolRegistry getSymbolRegistry() {
+        return symbolRegistry;
+    }
+
+    // Every depth update is applied, whatever the strategy: the book is position-indexed, so a skipped insert or
+    // delete would misplace every later level. Only the imbalance waits until something reads it.
+    @Override
+    public void onOrderBookUpdate(int symbolId, String symbol, boolean isBid, int position, double price, long size,
+                                  int operation, StrategyType strategy) {
+        orderBook.updateOrderBook(symbolId, isBid, position, price, size, operation);
+    }
+
+    // Every print goes on the tape, classified against the quote it arrived under.
     @Override
-    public void onOrderBookUpdate(String symbol, boolean isBid, double price, long size, int operation, StrategyType strategy) {
-        if (strategy == null || symbol == null) return;
-        if (strategy.getIndicatorsFor(Timeframe.TICK).contains(Indicator.ORDERBOOK))
-            orderBook.updateOrderBook(symbol, isBid, price, size, operation);
-    }
-
-    public double getVolatility(String symbol, Timeframe tf) { return volatility.getVolatility(symbol, tf); }
-    public double getMACDHistogram(String symbol, Timeframe tf) { return macd.getHistogram(symbol, tf); }
-    public double getRSI(String symbol, Timeframe tf) { return rsi.getRSI(symbol, tf); }
-    public double getRelativeVolume(String symbol, Timeframe tf) { return relVolume.getRelativeVolume(symbol, tf); }
-    public double getOrderBookImbalance(String symbol) { return orderBook.getOrderBookImbalance(symbol); }
-
-    public boolean isSMAUpTrend(String symbol, Timeframe tf) { return sma.isUpwardTrend(symbol, tf); }
-    public boolean isSMADownTrend(String symbol, Timeframe tf) { return sma.isDownwardTrend(symbol, tf); }
-    public boolean isBBAboveUpper(String symbol, Timeframe tf) { return bollingerBand.isAboveUpper(symbol, tf); }
-    public boolean isBBBelowLower(String symbol, Timeframe tf) { return bollingerBand.isBelowLower(symbol, tf); }
-    public boolean isPriceAboveVWAP(String symbol, Timeframe tf) { return vwap.isAboveVWAP(symbol, tf); }
-    public boolean isPriceBelowVWAP(String symbol, Timeframe tf) { return vwap.isBelowVWAP(symbol, tf); }
-    public boolean isUptrend(String symbol, Timeframe tf) { return trend.isUpwardTrend(symbol, tf); }
-    public boolean isDowntrend(String symbol, Timeframe tf) { return trend.isDownwardTrend(symbol, tf); }
-}
\ No newline at end of file
+    public void onTrade(int symbolId, double price, long size, long timestampMillis) {
+        tape.append(symbolId, price, size, timestampMillis);
+    }
+
+    // Callers hold the symbol lock; a derived indicator is evaluated by the first read after a bar close. A provisional
+    // read also folds in the bar BarManager has open on tf, as if it closed now, and falls back to the committed value
+    // while no bar is open.
+    public double getVolatility(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.volatility(slot, bars.openBarClose(symbolId, tf));
+        return kernel.volatility(slot);
+    }
+
+    public double getMACDHistogram(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf))
+            return kernel.macdHistogram(slot, bars.openBarClose(symbolId, tf));
+        return kernel.macdHistogram(slot);
+    }
+
+    public double getRSI(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf))
+            return kernel.rsi(slot, bars.openBarClose(symbolId, tf));
+        return kernel.rsi(slot);
+    }
+
+    public double getRelativeVolume(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.relativeVolume(slot, bars.openBarVolume(symbolId, tf));
+        return kernel.relativeVolume(slot);
+    }
+
+    public double getOrderBookImbalance(int symbolId) { return orderBook.getOrderBookImbalance(symbolId); }
+
+    public double getOrderFlowImbalance(int symbolId, int events) { return orderBook.getOrderFlowImbalance(symbolId, events); }
+
+    public double getMicropriceEdge(int symbolId) { return orderBook.getMicropriceEdge(symbolId); }
+
+    public double getQueueImbalance(int symbolId, int levels) { return orderBook.getQueueImbalance(symbolId, levels); }
+
+    public double getBookPressure(int symbolId, int events) { return orderBook.getBookPressure(symbolId, events); }
+
+    public double getVolumeDelta(int symbolId, int trades) { return tape.volumeDelta(symbolId, trades); }
+
+    public double getTradeRate(int symbolId, int trades) { return tape.tradeRate(symbolId, trades); }
+
+    public long getCumulativeDelta(int symbolId) { return tape.cumulativeDelta(symbolId); }
+
+    public boolean isSMAUpTrend(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.isSmaUpTrend(slot, bars.openBarClose(symbolId, tf));
+        return kernel.isSmaUpTrend(slot);
+    }
+
+    public boolean isSMADownTrend(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.isSmaDownTrend(slot, bars.openBarClose(symbolId, tf));
+        return kernel.isSmaDownTrend(slot);
+    }
+
+    public boolean isBBAboveUpper(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.isAboveUpperBand(slot, bars.openBarClose(symbolId, tf));
+        return kernel.isAboveUpperBand(slot);
+    }
+
+    public boolean isBBBelowLower(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.isBelowLowerBand(slot, bars.openBarClose(symbolId, tf));
+        return kernel.isBelowLowerBand(slot);
+    }
+
+    public boolean isPriceAboveVWAP(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.isAboveVwap(slot, bars.openBarHigh(symbolId, tf),
+                bars.openBarLow(symbolId, tf), bars.openBarClose(symbolId, tf), bars.openBarVolume(symbolId, tf));
+        return kernel.isAboveVwap(slot);
+    }
+
+    public boolean isPriceBelowVWAP(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf)) return kernel.isBelowVwap(slot, bars.openBarHigh(symbolId, tf),
+                bars.openBarLow(symbolId, tf), bars.openBarClose(symbolId, tf), bars.openBarVolume(symbolId, tf));
+        return kernel.isBelowVwap(slot);
+    }
+
+    public boolean isUptrend(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf))
+            return kernel.isUpwardTrend(slot, bars.openBarClose(symbolId, tf));
+        return kernel.isUpwardTrend(slot);
+    }
+
+    public boolean isDowntrend(int symbolId, Timeframe tf, boolean provisional) {
+        int slot = tf.slot(symbolId);
+        if (provisional && bars.isBarOpen(symbolId, tf))
+            return kernel.isDownwardTrend(slot, bars.openBarClose(symbolId, tf));
+        return kernel.isDownwardTrend(slot);
+    }
+}
@@ -0,0 +1,73 @@
+package com.trading.indicators;
+
+import java.util.Set;
+
+// Bar indicators as a dependency graph. Stateful nodes advance on every closed bar; derived nodes are computed from
+// them on the first read after a close. Dependencies are declared before their dependents, so declaration order is
+// an evaluation order. A slot only computes the closure of the nodes its strategy's indicators read.
+enum IndicatorNode {
+    // Closes shared by the SMA, Bollinger and volatility windows
+    CLOSES(true, true),
+    SMA_MOMENTS(true, true, CLOSES),
+    SMA(false, true, SMA_MOMENTS),
+    BB_MOMENTS(true, true, CLOSES),
+    BB_STDDEV(false, true, BB_MOMENTS),
+    BOLLINGER(false, true, BB_MOMENTS, BB_STDDEV),
+    EMA_FAST(true, true),
+    EMA_SLOW(true, true),
+    MACD_LINE(true, true, EMA_FAST, EMA_SLOW),
+    MACD_SIGNAL(true, true, MACD_LINE),
+    MACD(false, true, MACD_LINE, MACD_SIGNAL),
+    RSI_AVERAGES(true, true),
+    RSI(false, true, RSI_AVERAGES),
+    TREND(true, true),
+    VOLATILITY_MOMENTS(true, true, CLOSES),
+    VOLATILITY(false, true, VOLATILITY_MOMENTS),
+    VOLUMES(true, true),
+    VOLUME_MOMENTS(true, true, VOLUMES),
+    RELVOL(false, true, VOLUME_MOMENTS),
+    VWAP_SUMS(true, false),
+    VWAP(false, false, VWAP_SUMS);
+
+    private final boolean stateful;
+    // Parameterised nodes are skipped on a timeframe without a config block
+    private final boolean configured;
+    private final int closure;
+
+    IndicatorNode(boolean stateful, boolean configured, IndicatorNode... dependencies) {
+        this.stateful = stateful;
+        this.configured = configured;
+        int mask = 1 << ordinal();
+        for (IndicatorNode d : dependencies) mask |= d.closure;
+        this.closure = mask;
+    }
+
+    boolean isStateful() { return stateful; }
+    boolean needsConfig() { return configured; }
+    int mask() { return 1 << ordinal(); }
+
+    // The node an indicator reads from, or null for the order book indicators, which are not bar indicators.
+    static IndicatorNode of(Indicator indicator) {
+        return switch (indicator) {
+            case MACD -> MACD;
+            case SMA -> SMA;
+            case BOLLINGER -> BOLLINGER;
+            case VWAP -> VWAP;
+            case RSI -> RSI;
+            case RELVOL -> RELVOL;
+            case TREND -> TREND;
+            case VOLATILITY -> VOLATILITY;
+            case ORDERBOOK, OFI, MICROPRICE, QUEUE_IMBALANCE, BOOK_PRESSURE, VOLUME_DELTA, TRADE_RATE -> null;
+        };
+    }
+
+    // Every node the indicators need, their dependencies included.
+    static int closureOf(Set<Indicator> indicators) {
+        int mask = 0;
+        for (Indicator indicator : indicators) {
+            IndicatorNode node = of(indicator);
+            if (node != null) mask |= node.closure;
+        }
+        return mask;
+    }
+}
@@ -1,3 +0,0 @@
-package com.trading.indicators.averages;
-
-public record BollingerBands(double upper, double middle, double lower) {}
\ No newline at end of file
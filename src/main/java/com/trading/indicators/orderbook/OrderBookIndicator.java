@@ -1,85 +1,242 @@
 package com.trading.indicators.orderbook;
 
-import com.trading.datafeed.Level;
+import com.trading.ib.IBConnector;
 import com.trading.ib.LockManager;
+import com.trading.indicators.statistics.RollingWindow;
+import com.trading.store.DoubleColumn;
+import com.trading.store.IntColumn;
+import com.trading.store.LongColumn;
+import com.trading.store.OffHeapStore;
+
+// Fixed-depth L2 book per symbol, indexed by IB's depth position: row symbolId * ROWS + position holds that level,
+// best first. Insert, update and delete follow IB's operation codes, shifting the levels below the position. Every
+// update is applied under the symbol lock; the weighted imbalance is only recomputed by the first read after a change.
+//
+// Each update also advances the microstructure features from the change alone: the cumulative order flow imbalance
+// (Cont, Kukanov and Stoikov) from the best level before and after it, the per-side cumulative depth from the changed
+// position down, and the net depth. The last two are pushed to event-indexed rings, so OFI and book pressure over any
+// window up to maxEventWindow depth events are a difference of two ring entries.
+public class OrderBookIndicator {
 
-import java.util.*;
-import java.util.concurrent.*;
+    public static final int ROWS = IBConnector.DEPTH_ROWS;
 
-public class OrderBookIndicator {
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+
+    private final DoubleColumn bidPrice;
+    private final LongColumn bidSize;
+    private final IntColumn bidLevels;
+    private final DoubleColumn askPrice;
+    private final LongColumn askSize;
+    private final IntColumn askLevels;
+    // Row symbolId * ROWS + i: total size of levels 0..i on that side, so levels past the last hold the side's total
+    private final LongColumn bidDepth;
+    private final LongColumn askDepth;
+
+    private final DoubleColumn cumulativeOfi;
+    private final RollingWindow ofiHistory;
+    private final RollingWindow netDepthHistory;
 
-    private final Map<String, NavigableMap<Double, Level>> bidBooks = new ConcurrentHashMap<>();
-    private final Map<String, NavigableMap<Double, Level>> askBooks = new ConcurrentHashMap<>();
-    private final Map<String, Double> obImbalance = new ConcurrentHashMap<>();
-    private final Map<String, Double> obImbalanceDelta = new ConcurrentHashMap<>();
+    private final IntColumn stale;
+    private final DoubleColumn obImbalance;
+    private final DoubleColumn obImbalanceDelta;
 
     private final LockManager lockManager;
 
     private final int depth = 5;
 
-    public OrderBookIndicator(LockManager lockManager) {
+    public OrderBookIndicator(LockManager lockManager, OffHeapStore store, int maxEventWindow) {
         this.lockManager = lockManager;
+        int symbolCapacity = store.symbolCapacity();
+        this.bidPrice = store.doubles("orderBook.bidPrice", symbolCapacity * ROWS, 0.0);
+        this.bidSize = store.longs("orderBook.bidSize", symbolCapacity * ROWS, 0L);
+        this.bidLevels = store.ints("orderBook.bidLevels", symbolCapacity, 0);
+        this.askPrice = store.doubles("orderBook.askPrice", symbolCapacity * ROWS, 0.0);
+        this.askSize = store.longs("orderBook.askSize", symbolCapacity * ROWS, 0L);
+        this.askLevels = store.ints("orderBook.askLevels", symbolCapacity, 0);
+        this.bidDepth = store.longs("orderBook.bidDepth", symbolCapacity * ROWS, 0L);
+        this.askDepth = store.longs("orderBook.askDepth", symbolCapacity * ROWS, 0L);
+        this.cumulativeOfi = store.doubles("orderBook.cumulativeOfi", symbolCapacity, 0.0);
+        this.ofiHistory = new RollingWindow(store, "orderBook.ofi", symbolCapacity, maxEventWindow);
+        this.netDepthHistory = new RollingWindow(store, "orderBook.netDepth", symbolCapacity, maxEventWindow);
+        this.stale = store.ints("orderBook.stale", symbolCapacity, 0);
+        this.obImbalance = store.doubles("orderBook.obImbalance", symbolCapacity, Double.NaN);
+        this.obImbalanceDelta = store.doubles("orderBook.obImbalanceDelta", symbolCapacity, 0.0);
     }
 
-    public void updateOrderBook(String symbol, boolean isBid, double price, long size, int operation) {
-        boolean lockAcquired = lockManager.tryLock(symbol);
-        if (!lockAcquired) return;
-
-        try{
-            Map<String, NavigableMap<Double, Level>> bookMap = isBid ? bidBooks : askBooks;
-            NavigableMap<Double, Level> book = bookMap.computeIfAbsent(symbol,
-                    k -> isBid
-                            ? new ConcurrentSkipListMap<>(Comparator.reverseOrder())
-                            : new ConcurrentSkipListMap<>());
-
-            if (operation == 2 || size == 0) book.remove(price);
-            else book.put(price, new Level(price, size));
+    public void updateOrderBook(int symbolId, boolean isBid, int position, double price, long size, int operation) {
+        if (position < 0 || position >= ROWS) return;
+        lockManager.lock(symbolId);
+        try {
+            DoubleColumn prices = isBid ? bidPrice : askPrice;
+            LongColumn sizes = isBid ? bidSize : askSize;
+            IntColumn levels = isBid ? bidLevels : askLevels;
+            LongColumn depths = isBid ? bidDepth : askDepth;
+            int base = symbolId * ROWS;
+            int n = levels.get(symbolId);
+            double bestPrice = n > 0 ? prices.get(base) : isBid ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            long bestSize = n > 0 ? sizes.get(base) : 0L;
+            int from;
+
+            switch (operation) {
+                case INSERT -> {
+                    int at = Math.min(position, n);
+                    for (int i = Math.min(n, ROWS - 1); i > at; i--) {
+                        prices.set(base + i, prices.get(base + i - 1));
+                        sizes.set(base + i, sizes.get(base + i - 1));
+                    }
+                    prices.set(base + at, price);
+                    sizes.set(base + at, size);
+                    levels.set(symbolId, Math.min(n + 1, ROWS));
+                    from = at;
+                }
+                case UPDATE -> {
+                    // An update past the last level extends the book rather than being lost
+                    int at = Math.min(position, n);
+                    prices.set(base + at, price);
+                    sizes.set(base + at, size);
+                    if (at == n) levels.set(symbolId, n + 1);
+                    from = at;
+                }
+                case DELETE -> {
+                    if (position >= n) return;
+                    for (int i = position; i < n - 1; i++) {
+                        prices.set(base + i, prices.get(base + i + 1));
+                        sizes.set(base + i, sizes.get(base + i + 1));
+                    }
+                    levels.set(symbolId, n - 1);
+                    from = position;
+                }
+                default -> { return; }
+            }
+            stale.set(symbolId, 1);
 
-            while (book.size() > depth) {
-                book.pollLastEntry();
+            n = levels.get(symbolId);
+            long total = from > 0 ? depths.get(base + from - 1) : 0L;
+            for (int i = from; i < ROWS; i++) {
+                if (i < n) total += sizes.get(base + i);
+                depths.set(base + i, total);
             }
 
-            updateImbalance(symbol);
+            // Only this side's best level can have moved; the other side contributes nothing to the event
+            double newPrice = n > 0 ? prices.get(base) : isBid ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            long newSize = n > 0 ? sizes.get(base) : 0L;
+            long flow;
+            if (newPrice == bestPrice) flow = newSize - bestSize;
+            else if (isBid == newPrice > bestPrice) flow = newSize;
+            else flow = -bestSize;
+            double ofi = cumulativeOfi.get(symbolId) + (isBid ? flow : -flow);
+            cumulativeOfi.set(symbolId, ofi);
+            ofiHistory.push(symbolId, ofi);
+            netDepthHistory.push(symbolId, bidDepth.get(base + ROWS - 1) - askDepth.get(base + ROWS - 1));
         } finally {
-            lockManager.unlock(symbol);
+            lockManager.unlock(symbolId);
         }
     }
 
-    private void updateImbalance(String symbol) {
-        NavigableMap<Double, Level> bids = bidBooks.get(symbol);
-        NavigableMap<Double, Level> asks = askBooks.get(symbol);
+    public void reset(int symbolId) {
+        lockManager.lock(symbolId);
+        try {
+            bidLevels.set(symbolId, 0);
+            askLevels.set(symbolId, 0);
+            bidDepth.fill(symbolId * ROWS, (symbolId + 1) * ROWS, 0L);
+            askDepth.fill(symbolId * ROWS, (symbolId + 1) * ROWS, 0L);
+            cumulativeOfi.set(symbolId, 0.0);
+            ofiHistory.reset(symbolId);
+            netDepthHistory.reset(symbolId);
+            stale.set(symbolId, 0);
+            obImbalance.set(symbolId, Double.NaN);
+            obImbalanceDelta.set(symbolId, 0.0);
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
+
+    // Callers hold the symbol lock.
+    private void updateImbalance(int symbolId) {
+        if (stale.get(symbolId) == 0) return;
+        stale.set(symbolId, 0);
 
-        if (bids == null || bids.isEmpty() || asks == null || asks.isEmpty()) {
-            obImbalance.put(symbol, Double.NaN);
+        int bids = Math.min(bidLevels.get(symbolId), depth);
+        int asks = Math.min(askLevels.get(symbolId), depth);
+        if (bids == 0 || asks == 0) {
+            obImbalance.set(symbolId, Double.NaN);
             return;
         }
 
-        double midPrice = (bids.firstKey() + asks.firstKey()) / 2.0;
+        int base = symbolId * ROWS;
+        double midPrice = (bidPrice.get(base) + askPrice.get(base)) / 2.0;
         double bidTotal = 0.0, askTotal = 0.0;
-        int count = 0;
+        for (int i = 0; i < bids; i++) bidTotal += bidSize.get(base + i) / (1.0 + Math.abs(bidPrice.get(base + i) - midPrice));
+        for (int i = 0; i < asks; i++) askTotal += askSize.get(base + i) / (1.0 + Math.abs(askPrice.get(base + i) - midPrice));
 
-        for (Map.Entry<Double, Level> e : bids.entrySet()) {
-            if (count++ >= depth) break;
-            bidTotal += e.getValue().getSize() / (1.0 + Math.abs(e.getKey() - midPrice));
-        }
+        double prev = Double.isNaN(obImbalance.get(symbolId)) ? 0.0 : obImbalance.get(symbolId);
+        double imbalance = (bidTotal + askTotal) == 0.0 ? Double.NaN : (bidTotal - askTotal) / (bidTotal + askTotal);
+        obImbalance.set(symbolId, imbalance);
+        obImbalanceDelta.set(symbolId, imbalance - prev);
+    }
 
-        count = 0;
-        for (Map.Entry<Double, Level> e : asks.entrySet()) {
-            if (count++ >= depth) break;
-            askTotal += e.getValue().getSize() / (1.0 + Math.abs(e.getKey() - midPrice));
-        }
+    public double getOrderBookImbalance(int symbolId) {
+        updateImbalance(symbolId);
+        return obImbalance.get(symbolId);
+    }
 
-        double prev = obImbalance.getOrDefault(symbol, 0.0);
-        double imbalance = (bidTotal + askTotal) == 0.0 ? Double.NaN : (bidTotal - askTotal) / (bidTotal + askTotal);
-        obImbalance.put(symbol, imbalance);
-        obImbalanceDelta.put(symbol, imbalance - prev);
+    public double getOrderBookImbalanceDelta(int symbolId) {
+        updateImbalance(symbolId);
+        return obImbalanceDelta.get(symbolId);
+    }
+
+    // ===== MICROSTRUCTURE (callers hold the symbol lock) =====
+
+    // Net order flow over the last events depth updates, as a fraction of the resting depth on both sides.
+    public double getOrderFlowImbalance(int symbolId, int events) {
+        return perDepth(symbolId, eventDelta(ofiHistory, symbolId, events));
+    }
+
+    // Change in bid depth minus ask depth over the last events depth updates, as a fraction of the resting depth.
+    public double getBookPressure(int symbolId, int events) {
+        return perDepth(symbolId, eventDelta(netDepthHistory, symbolId, events));
+    }
+
+    // (bid - ask) / (bid + ask) over the sizes of the top levels on each side.
+    public double getQueueImbalance(int symbolId, int levels) {
+        int row = symbolId * ROWS + Math.max(1, Math.min(levels, ROWS)) - 1;
+        long bid = bidDepth.get(row);
+        long ask = askDepth.get(row);
+        return bid + ask == 0 ? Double.NaN : (double) (bid - ask) / (bid + ask);
+    }
+
+    // Size-weighted mid of the best bid and ask, NaN while either side is empty.
+    public double getMicroprice(int symbolId) {
+        if (bidLevels.get(symbolId) == 0 || askLevels.get(symbolId) == 0) return Double.NaN;
+        int base = symbolId * ROWS;
+        double bid = bidPrice.get(base), ask = askPrice.get(base);
+        long bidQty = bidSize.get(base), askQty = askSize.get(base);
+        if (bidQty + askQty == 0) return (bid + ask) / 2.0;
+        return (bid * askQty + ask * bidQty) / (bidQty + askQty);
+    }
+
+    // Microprice minus mid, as a fraction of mid.
+    public double getMicropriceEdge(int symbolId) {
+        double micro = getMicroprice(symbolId);
+        if (Double.isNaN(micro)) return Double.NaN;
+        int base = symbolId * ROWS;
+        double mid = (bidPrice.get(base) + askPrice.get(base)) / 2.0;
+        return (micro - mid) / mid;
     }
 
-    public double getOrderBookImbalance(String symbol) {
-        return obImbalance.getOrDefault(symbol, Double.NaN);
+    // Newest value minus the one events pushes earlier; before the first push the value was 0.
+    private static double eventDelta(RollingWindow history, int symbolId, int events) {
+        long n = history.count(symbolId);
+        if (n == 0) return 0.0;
+        int ago = Math.max(1, Math.min(events, history.capacity() - 1));
+        return history.newest(symbolId) - (n > ago ? history.get(symbolId, ago) : 0.0);
     }
 
-    public double getOrderBookImbalanceDelta(String symbol) {
-        return obImbalanceDelta.getOrDefault(symbol, 0.0);
+    private double perDepth(int symbolId, double value) {
+        int last = symbolId * ROWS + ROWS - 1;
+        long depth = bidDepth.get(last) + askDepth.get(last);
+        return depth == 0 ? Double.NaN : value / depth;
     }
-}
\ No newline at end of file
+}
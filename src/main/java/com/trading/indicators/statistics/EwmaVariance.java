@@ -0,0 +1,49 @@
+package com.trading.indicators.statistics;
+
+import com.trading.store.DoubleColumn;
+import com.trading.store.OffHeapStore;
+
+// Exponentially weighted mean and variance per row. The incremental form (West, 1979) carries the variance itself
+// rather than a sum of squares, so it stays stable however long it runs.
+public final class EwmaVariance {
+
+    private final DoubleColumn seeded;
+    private final DoubleColumn mean;
+    private final DoubleColumn variance;
+
+    public EwmaVariance(OffHeapStore store, String name, int rows) {
+        this.seeded = store.doubles(name + ".seeded", rows, 0.0);
+        this.mean = store.doubles(name + ".mean", rows, 0.0);
+        this.variance = store.doubles(name + ".variance", rows, 0.0);
+    }
+
+    public void reset(int row) {
+        seeded.set(row, 0.0);
+        mean.set(row, 0.0);
+        variance.set(row, 0.0);
+    }
+
+    // alpha in (0, 1]: the weight of the new value, 2 / (period + 1) for an EMA-equivalent span.
+    public void add(int row, double x, double alpha) {
+        if (seeded.get(row) == 0) {
+            seeded.set(row, 1.0);
+            mean.set(row, x);
+            variance.set(row, 0.0);
+            return;
+        }
+        double diff = x - mean.get(row);
+        double increment = alpha * diff;
+        mean.set(row, mean.get(row) + increment);
+        variance.set(row, (1 - alpha) * (variance.get(row) + diff * increment));
+    }
+
+    public double mean(int row) { return mean.get(row); }
+    public double variance(int row) { return variance.get(row); }
+
+    // The variance as if x were added next, without adding it.
+    public double varianceWith(int row, double x, double alpha) {
+        if (seeded.get(row) == 0) return 0.0;
+        double diff = x - mean.get(row);
+        return (1 - alpha) * (variance.get(row) + diff * alpha * diff);
+    }
+}
@@ -0,0 +1,151 @@
+package com.trading.indicators.statistics;
+
+import com.trading.store.DoubleColumn;
+import com.trading.store.IntColumn;
+import com.trading.store.OffHeapStore;
+
+// Mean and variance of the last period values of a RollingWindow, O(1) per push. Welford's update with the evicted
+// value taken back out keeps the sum of squared deviations free of the sumSq/n - mean^2 cancellation, and the window
+// is re-summed exactly once every period pushes so rounding cannot build up over a session.
+public final class RollingMoments {
+
+    private final RollingWindow window;
+    private final IntColumn period;
+    private final IntColumn size;
+    private final IntColumn sinceResync;
+    private final DoubleColumn mean;
+    private final DoubleColumn m2;
+
+    public RollingMoments(OffHeapStore store, String name, RollingWindow window, int rows) {
+        this.window = window;
+        this.period = store.ints(name + ".period", rows, 0);
+        this.size = store.ints(name + ".size", rows, 0);
+        this.sinceResync = store.ints(name + ".sinceResync", rows, 0);
+        this.mean = store.doubles(name + ".mean", rows, 0.0);
+        this.m2 = store.doubles(name + ".m2", rows, 0.0);
+    }
+
+    public void reset(int row) {
+        period.set(row, 0);
+        size.set(row, 0);
+        sinceResync.set(row, 0);
+        mean.set(row, 0.0);
+        m2.set(row, 0.0);
+    }
+
+    // Recomputes the row from the window's newest values, up to period of them, as if each had been added in turn.
+    public void rebuild(int row, int period) {
+        if (period < 1 || period >= window.capacity()) throw new IllegalArgumentException("period " + period);
+        int n = (int) Math.min(window.count(row), period);
+        this.period.set(row, period);
+        size.set(row, n);
+        sinceResync.set(row, 0);
+        if (n == 0) {
+            mean.set(row, 0.0);
+            m2.set(row, 0.0);
+            return;
+        }
+        resync(row, n);
+    }
+
+    // Takes in the value just pushed to the window; period must stay the same until the row is reset.
+    public void add(int row, int period) {
+        if (period < 1 || period >= window.capacity()) throw new IllegalArgumentException("period " + period);
+        this.period.set(row, period);
+        double x = window.newest(row);
+        int n = size.get(row);
+        double mu = mean.get(row);
+
+        if (n < period) {
+            n++;
+            double delta = x - mu;
+            mu += delta / n;
+            m2.set(row, m2.get(row) + delta * (x - mu));
+            size.set(row, n);
+            mean.set(row, mu);
+            return;
+        }
+
+        int since = sinceResync.get(row) + 1;
+        if (since >= period) {
+            resync(row, period);
+            since = 0;
+        } else {
+            double evicted = window.get(row, period);
+            double delta = x - evicted;
+            double newMean = mu + delta / n;
+            m2.set(row, Math.max(0.0, m2.get(row) + delta * (x - newMean + evicted - mu)));
+            mean.set(row, newMean);
+        }
+        sinceResync.set(row, since);
+    }
+
+    // Two-pass mean and squared deviations over the newest period values.
+    private void resync(int row, int period) {
+        double sum = 0;
+        for (int ago = 0; ago < period; ago++) sum += window.get(row, ago);
+        double mu = sum / period;
+        double sq = 0;
+        for (int ago = 0; ago < period; ago++) {
+            double d = window.get(row, ago) - mu;
+            sq += d * d;
+        }
+        mean.set(row, mu);
+        m2.set(row, sq);
+    }
+
+    public int size(int row) { return size.get(row); }
+    public boolean isFull(int row) { return size.get(row) > 0 && size.get(row) >= period.get(row); }
+    public double mean(int row) { return mean.get(row); }
+
+    public double populationVariance(int row) {
+        int n = size.get(row);
+        return n == 0 ? 0.0 : m2.get(row) / n;
+    }
+
+    public double sampleVariance(int row) {
+        int n = size.get(row);
+        return n < 2 ? 0.0 : m2.get(row) / (n - 1);
+    }
+
+    // ===== PROVISIONAL (as if x were added next, without adding it) =====
+    public int sizeWith(int row) {
+        return Math.min(size.get(row) + 1, period.get(row));
+    }
+
+    public boolean isFullWith(int row) {
+        return period.get(row) > 0 && size.get(row) + 1 >= period.get(row);
+    }
+
+    public double meanWith(int row, double x) {
+        int n = size.get(row);
+        int p = period.get(row);
+        double mu = mean.get(row);
+        if (p == 0) return mu;
+        return n < p ? mu + (x - mu) / (n + 1) : mu + (x - window.get(row, p - 1)) / n;
+    }
+
+    public double populationVarianceWith(int row, double x) {
+        int n = sizeWith(row);
+        return n == 0 ? 0.0 : m2With(row, x) / n;
+    }
+
+    public double sampleVarianceWith(int row, double x) {
+        int n = sizeWith(row);
+        return n < 2 ? 0.0 : m2With(row, x) / (n - 1);
+    }
+
+    private double m2With(int row, double x) {
+        int n = size.get(row);
+        int p = period.get(row);
+        double mu = mean.get(row);
+        if (p == 0) return m2.get(row);
+        if (n < p) {
+            double delta = x - mu;
+            return m2.get(row) + delta * (x - (mu + delta / (n + 1)));
+        }
+        double evicted = window.get(row, p - 1);
+        double delta = x - evicted;
+        return Math.max(0.0, m2.get(row) + delta * (x - (mu + delta / n) + evicted - mu));
+    }
+}
@@ -0,0 +1,56 @@
+package com.trading.indicators.statistics;
+
+import com.trading.store.DoubleColumn;
+import com.trading.store.LongColumn;
+import com.trading.store.OffHeapStore;
+
+// The most recent values pushed to each row, in a power-of-two off-heap ring. Statistics over the window read the
+// value a push evicts from here, so the ring holds one more value than the longest period it serves.
+public final class RollingWindow {
+
+    private final DoubleColumn values;
+    private final LongColumn counts;
+    private final int mask;
+    private final int shift;
+
+    public RollingWindow(OffHeapStore store, String name, int rows, int maxPeriod) {
+        int capacity = Integer.highestOneBit(Math.max(1, maxPeriod)) << 1;
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.values = store.doubles(name + ".values", rows * capacity, 0.0);
+        this.counts = store.longs(name + ".count", rows, 0);
+    }
+
+    public void reset(int row) {
+        counts.set(row, 0);
+    }
+
+    public void push(int row, double value) {
+        long n = counts.get(row);
+        values.set((row << shift) + (int) (n & mask), value);
+        counts.set(row, n + 1);
+    }
+
+    // Values ever pushed to the row, not just those still held.
+    public long count(int row) {
+        return counts.get(row);
+    }
+
+    // The value pushed ago pushes before the newest; ago must be below count and capacity.
+    public double get(int row, int ago) {
+        return at(row, counts.get(row) - 1 - ago);
+    }
+
+    public double newest(int row) {
+        return get(row, 0);
+    }
+
+    // The value with the given push sequence number.
+    double at(int row, long index) {
+        return values.get((row << shift) + (int) (index & mask));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,141 @@
+package com.trading.indicators.tape;
+
+import com.trading.ib.IBConnector;
+import com.trading.ib.LockManager;
+import com.trading.ib.SymbolData;
+import com.trading.store.DoubleColumn;
+import com.trading.store.IntColumn;
+import com.trading.store.LongColumn;
+import com.trading.store.OffHeapStore;
+
+// The most recent prints per symbol in a power-of-two off-heap ring: price, size, time and aggressor side, with the
+// running signed volume (cumulative delta) and total volume at each print. Windowed features over the last N trades
+// are then a difference of two ring entries. Appended under the symbol lock; read by callers holding it.
+//
+// Each print is classified against the quote in SymbolData when it arrives (Lee-Ready): at or through the ask is a
+// buy, at or through the bid a sell, otherwise the side of the mid it printed on. A print at the mid, or with no
+// two-sided quote, takes the tick rule against the previous print, and repeats the previous side on a zero tick.
+public class TradeTape {
+
+    public static final int BUY = 1;
+    public static final int SELL = -1;
+
+    private final IBConnector ib;
+    private final LockManager lockManager;
+    private final int mask;
+    private final int shift;
+
+    private final DoubleColumn price;
+    private final LongColumn size;
+    private final LongColumn time;
+    private final IntColumn side;
+    private final LongColumn cumulativeDelta;
+    private final LongColumn cumulativeVolume;
+    private final LongColumn count;
+
+    public TradeTape(IBConnector ib, LockManager lockManager, int maxTrades) {
+        this.ib = ib;
+        this.lockManager = lockManager;
+        // One more print than the longest window, since a window of N trades spans N + 1 entries
+        int capacity = Integer.highestOneBit(Math.max(255, maxTrades)) << 1;
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        OffHeapStore store = ib.getStore();
+        int rows = store.symbolCapacity() * capacity;
+        this.price = store.doubles("tape.price", rows, 0.0);
+        this.size = store.longs("tape.size", rows, 0L);
+        this.time = store.longs("tape.time", rows, 0L);
+        this.side = store.ints("tape.side", rows, 0);
+        this.cumulativeDelta = store.longs("tape.cumulativeDelta", rows, 0L);
+        this.cumulativeVolume = store.longs("tape.cumulativeVolume", rows, 0L);
+        this.count = store.longs("tape.count", store.symbolCapacity(), 0L);
+    }
+
+    public void append(int symbolId, double p, long q, long timestampMillis) {
+        SymbolData data = ib.getSymbolData(symbolId);
+        double bid = data == null ? 0.0 : data.getBid();
+        double ask = data == null ? 0.0 : data.getAsk();
+        lockManager.lock(symbolId);
+        try {
+            long n = count.get(symbolId);
+            int prev = n > 0 ? row(symbolId, n - 1) : -1;
+            int s;
+            if (bid > 0 && ask >= bid && p >= ask) s = BUY;
+            else if (bid > 0 && ask >= bid && p <= bid) s = SELL;
+            else if (bid > 0 && ask >= bid && p != (bid + ask) / 2.0) s = p > (bid + ask) / 2.0 ? BUY : SELL;
+            else if (prev < 0) s = BUY;
+            else if (p != price.get(prev)) s = p > price.get(prev) ? BUY : SELL;
+            else s = side.get(prev);
+
+            int r = row(symbolId, n);
+            price.set(r, p);
+            size.set(r, q);
+            time.set(r, timestampMillis);
+            side.set(r, s);
+            cumulativeDelta.set(r, (prev < 0 ? 0L : cumulativeDelta.get(prev)) + s * q);
+            cumulativeVolume.set(r, (prev < 0 ? 0L : cumulativeVolume.get(prev)) + q);
+            count.set(symbolId, n + 1);
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
+
+    public void reset(int symbolId) {
+        lockManager.lock(symbolId);
+        try {
+            count.set(symbolId, 0L);
+        } finally {
+            lockManager.unlock(symbolId);
+        }
+    }
+
+    // ===== FEATURES (callers hold the symbol lock) =====
+
+    // Prints ever appended, not just those still held.
+    public long count(int symbolId) { return count.get(symbolId); }
+    public int capacity() { return mask + 1; }
+
+    // ago = 0 is the newest print; callers keep ago below count and capacity.
+    public double price(int symbolId, int ago) { return price.get(at(symbolId, ago)); }
+    public long size(int symbolId, int ago) { return size.get(at(symbolId, ago)); }
+    public long time(int symbolId, int ago) { return time.get(at(symbolId, ago)); }
+    public int side(int symbolId, int ago) { return side.get(at(symbolId, ago)); }
+
+    // Buy volume minus sell volume since the last reset.
+    public long cumulativeDelta(int symbolId) {
+        return count.get(symbolId) == 0 ? 0L : cumulativeDelta.get(at(symbolId, 0));
+    }
+
+    // Buy minus sell volume over the last trades prints, as a fraction of their volume; NaN before the first print.
+    public double volumeDelta(int symbolId, int trades) {
+        long n = count.get(symbolId);
+        if (n == 0) return Double.NaN;
+        int ago = Math.max(1, Math.min(trades, mask));
+        int newest = at(symbolId, 0);
+        long delta = cumulativeDelta.get(newest);
+        long volume = cumulativeVolume.get(newest);
+        if (n > ago) {
+            int oldest = at(symbolId, ago);
+            delta -= cumulativeDelta.get(oldest);
+            volume -= cumulativeVolume.get(oldest);
+        }
+        return volume == 0 ? Double.NaN : (double) delta / volume;
+    }
+
+    // Prints per second over the last trades prints; NaN until they span some time.
+    public double tradeRate(int symbolId, int trades) {
+        long n = count.get(symbolId);
+        int ago = (int) Math.min(Math.max(1, Math.min(trades, mask)), n - 1);
+        if (ago < 1) return Double.NaN;
+        long elapsed = time.get(at(symbolId, 0)) - time.get(at(symbolId, ago));
+        return elapsed <= 0 ? Double.NaN : ago * 1000.0 / elapsed;
+    }
+
+    private int at(int symbolId, int ago) {
+        return row(symbolId, count.get(symbolId) - 1 - ago);
+    }
+
+    private int row(int symbolId, long index) {
+        return (symbolId << shift) + (int) (index & mask);
+    }
+}
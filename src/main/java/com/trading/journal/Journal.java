@@ -0,0 +1,90 @@
+package com.trading.journal;
+
+import java.nio.ByteBuffer;
+
+public final class Journal {
+
+    public static final int MAGIC = 0x4D444A31;
+    public static final int VERSION = 1;
+    public static final int RECORD_SIZE = 64;
+    public static final String FILE_SUFFIX = ".journal";
+
+    // Record types. Zero marks the unwritten tail of a segment.
+    public static final int END = 0;
+    public static final int TICK_PRICE = 1;
+    public static final int TICK_SIZE = 2;
+    public static final int REALTIME_BAR = 3;
+    public static final int DEPTH = 4;
+    public static final int EXEC_DETAILS = 5;
+    public static final int ORDER_STATUS = 6;
+    public static final int SYMBOL_ADDED = 7;
+    public static final int SYMBOL_REMOVED = 8;
+    public static final int TICK_BY_TICK_LAST = 9;
+    public static final int TICK_BY_TICK_BID_ASK = 10;
+    public static final int SEGMENT_HEADER = 127;
+
+    // Fixed 64-byte little-endian layout:
+    //  0 int  type            4 int  symbolId        8 long receive time (epoch nanos)
+    //  TICK_PRICE      16 field                      24 price
+    //  TICK_SIZE       16 field                      56 size
+    //  REALTIME_BAR    16 long bar time              24 open  32 high  40 low  48 close  56 volume
+    //  DEPTH           16 position  20 side          24 price  32 operation             56 size
+    //  EXEC_DETAILS    16 orderId   20 side (+1/-1)  24 price  32..55 symbol            56 shares
+    //  ORDER_STATUS    16 orderId   20 status code   24 avgFillPrice  32 lastFillPrice  48 remaining  56 filled
+    //  SYMBOL_ADDED    16 strategy ordinal                     32..55 symbol
+    //  SYMBOL_REMOVED                                          32..55 symbol
+    //  TICK_BY_TICK_LAST    16 long time (epoch s)   24 price                              56 size
+    //  TICK_BY_TICK_BID_ASK 16 long time (epoch s)   24 bid   32 ask           48 bid size 56 ask size
+    //  SEGMENT_HEADER  16 magic     20 version       24 segment index
+    public static final int TYPE = 0;
+    public static final int SYMBOL_ID = 4;
+    public static final int TIMESTAMP = 8;
+    public static final int INT_A = 16;
+    public static final int INT_B = 20;
+    public static final int LONG_A = 16;
+    public static final int DOUBLE_A = 24;
+    public static final int DOUBLE_B = 32;
+    public static final int DOUBLE_C = 40;
+    public static final int DOUBLE_D = 48;
+    public static final int INT_C = 32;
+    public static final int LONG_B = 48;
+    public static final int LONG_C = 56;
+    public static final int TEXT = 32;
+    public static final int TEXT_LENGTH = 24;
+
+    private static final String[] ORDER_STATUSES = {
+            "", "ApiPending", "PendingSubmit", "PendingCancel", "PreSubmitted", "Submitted",
+            "ApiCancelled", "Cancelled", "Filled", "Inactive"
+    };
+
+    private Journal() {}
+
+    public static int statusCode(String status) {
+        if (status == null) return 0;
+        for (int i = 1; i < ORDER_STATUSES.length; i++) {
+            if (ORDER_STATUSES[i].equalsIgnoreCase(status)) return i;
+        }
+        return 0;
+    }
+
+    public static String statusName(int code) {
+        return code > 0 && code < ORDER_STATUSES.length ? ORDER_STATUSES[code] : "Unknown";
+    }
+
+    public static void putText(ByteBuffer buffer, int index, String text) {
+        int len = Math.min(text.length(), TEXT_LENGTH);
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            buffer.put(index + i, i < len ? (byte) text.charAt(i) : 0);
+        }
+    }
+
+    public static String getText(ByteBuffer buffer, int index) {
+        StringBuilder sb = new StringBuilder(TEXT_LENGTH);
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            byte b = buffer.get(index + i);
+            if (b == 0) break;
+            sb.append((char) b);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,331 @@
+package com.trading.journal;
+
+import com.trading.strategy.StrategyType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class MarketDataRecorder implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataRecorder.class);
+
+    private static final DateTimeFormatter SESSION_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int position;
+
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private record SymbolEvent(int type, int symbolId, String symbol, int strategy) {}
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final String sessionName;
+    private final long epochNanosBase;
+    private final long nanoTimeBase;
+
+    // Subscriptions happen off the reader thread; they are queued and written by the reader thread on its next append.
+    private final ConcurrentLinkedQueue<SymbolEvent> pendingSymbols = new ConcurrentLinkedQueue<>();
+    private final String[] symbols;
+    private final int[] strategies;
+
+    private volatile Segment active;
+    private final AtomicReference<Segment> prepared = new AtomicReference<>();
+    private final ArrayBlockingQueue<Segment> retired = new ArrayBlockingQueue<>(8);
+    private int nextSegmentIndex = 0;
+    private final LongAdder dropped = new LongAdder();
+
+    private Segment current;
+    private int cursor;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public MarketDataRecorder(Path directory, int segmentSizeMb, int flushIntervalMs, int symbolCapacity) {
+        this.directory = directory;
+        this.segmentSize = Math.max(1, segmentSizeMb) * 1024 * 1024;
+        this.flushIntervalNanos = Math.max(1, flushIntervalMs) * 1_000_000L;
+        this.symbols = new String[symbolCapacity];
+        this.strategies = new int[symbolCapacity];
+        Instant now = Instant.now();
+        this.sessionName = SESSION_FORMAT.format(now);
+        this.epochNanosBase = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        this.nanoTimeBase = System.nanoTime();
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        Files.createDirectories(directory);
+        active = openSegment();
+        prepared.set(openSegment());
+        running = true;
+        flusher = new Thread(this::flushLoop, "md-recorder-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Recording market data to {} ({} MB segments)", directory, segmentSize / (1024 * 1024));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Segment last = active;
+        active = null;
+        closeSegment(last);
+        Segment r;
+        while ((r = retired.poll()) != null) closeSegment(r);
+        Segment unused = prepared.getAndSet(null);
+        if (unused != null) {
+            closeSegment(unused);
+            try { Files.deleteIfExists(unused.path); } catch (IOException ignored) {}
+        }
+        long lost = dropped.sum();
+        if (lost > 0) log.warn("Market data recorder dropped {} records.", lost);
+        log.info("Market data recorder closed.");
+    }
+
+    public long getDroppedRecords() {
+        return dropped.sum();
+    }
+
+    // ======================== SYMBOL MAPPING (any thread) ========================
+    public void symbolAdded(int symbolId, String symbol, StrategyType strategyType) {
+        pendingSymbols.offer(new SymbolEvent(Journal.SYMBOL_ADDED, symbolId, symbol,
+                strategyType == null ? -1 : strategyType.ordinal()));
+    }
+
+    public void symbolRemoved(int symbolId, String symbol) {
+        pendingSymbols.offer(new SymbolEvent(Journal.SYMBOL_REMOVED, symbolId, symbol, -1));
+    }
+
+    // ======================== RECORDING (reader thread) ========================
+    public void recordTickPrice(int symbolId, int field, double price) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putInt(cursor + Journal.INT_A, field);
+        b.putDouble(cursor + Journal.DOUBLE_A, price);
+        commit(b, Journal.TICK_PRICE);
+    }
+
+    public void recordTickSize(int symbolId, int field, long size) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putInt(cursor + Journal.INT_A, field);
+        b.putLong(cursor + Journal.LONG_C, size);
+        commit(b, Journal.TICK_SIZE);
+    }
+
+    public void recordRealTimeBar(int symbolId, long time, double open, double high, double low, double close, long volume) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putLong(cursor + Journal.LONG_A, time);
+        b.putDouble(cursor + Journal.DOUBLE_A, open);
+        b.putDouble(cursor + Journal.DOUBLE_B, high);
+        b.putDouble(cursor + Journal.DOUBLE_C, low);
+        b.putDouble(cursor + Journal.DOUBLE_D, close);
+        b.putLong(cursor + Journal.LONG_C, volume);
+        commit(b, Journal.REALTIME_BAR);
+    }
+
+    public void recordDepth(int symbolId, int position, int side, int operation, double price, long size) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putInt(cursor + Journal.INT_A, position);
+        b.putInt(cursor + Journal.INT_B, side);
+        b.putDouble(cursor + Journal.DOUBLE_A, price);
+        b.putInt(cursor + Journal.INT_C, operation);
+        b.putLong(cursor + Journal.LONG_C, size);
+        commit(b, Journal.DEPTH);
+    }
+
+    public void recordTradeTick(int symbolId, long time, double price, long size) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putLong(cursor + Journal.LONG_A, time);
+        b.putDouble(cursor + Journal.DOUBLE_A, price);
+        b.putLong(cursor + Journal.LONG_C, size);
+        commit(b, Journal.TICK_BY_TICK_LAST);
+    }
+
+    public void recordQuoteTick(int symbolId, long time, double bid, double ask, long bidSize, long askSize) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putLong(cursor + Journal.LONG_A, time);
+        b.putDouble(cursor + Journal.DOUBLE_A, bid);
+        b.putDouble(cursor + Journal.DOUBLE_B, ask);
+        b.putLong(cursor + Journal.LONG_B, bidSize);
+        b.putLong(cursor + Journal.LONG_C, askSize);
+        commit(b, Journal.TICK_BY_TICK_BID_ASK);
+    }
+
+    public void recordExecution(int symbolId, String symbol, int orderId, boolean isBuy, double price, long shares) {
+        MappedByteBuffer b = claim(symbolId);
+        if (b == null) return;
+        b.putInt(cursor + Journal.INT_A, orderId);
+        b.putInt(cursor + Journal.INT_B, isBuy ? 1 : -1);
+        b.putDouble(cursor + Journal.DOUBLE_A, price);
+        Journal.putText(b, cursor + Journal.TEXT, symbol == null ? "" : symbol);
+        b.putLong(cursor + Journal.LONG_C, shares);
+        commit(b, Journal.EXEC_DETAILS);
+    }
+
+    public void recordOrderStatus(int orderId, String status, long filled, long remaining,
+                                  double avgFillPrice, double lastFillPrice) {
+        MappedByteBuffer b = claim(-1);
+        if (b == null) return;
+        b.putInt(cursor + Journal.INT_A, orderId);
+        b.putInt(cursor + Journal.INT_B, Journal.statusCode(status));
+        b.putDouble(cursor + Journal.DOUBLE_A, avgFillPrice);
+        b.putDouble(cursor + Journal.DOUBLE_B, lastFillPrice);
+        b.putLong(cursor + Journal.LONG_B, remaining);
+        b.putLong(cursor + Journal.LONG_C, filled);
+        commit(b, Journal.ORDER_STATUS);
+    }
+
+    private MappedByteBuffer claim(int symbolId) {
+        if (!pendingSymbols.isEmpty()) drainPendingSymbols();
+        MappedByteBuffer b = claimSlot();
+        if (b == null) return null;
+        b.putInt(cursor + Journal.SYMBOL_ID, symbolId);
+        b.putLong(cursor + Journal.TIMESTAMP, epochNanosBase + (System.nanoTime() - nanoTimeBase));
+        return b;
+    }
+
+    // The type is written last so a torn tail reads as END.
+    private void commit(MappedByteBuffer b, int type) {
+        b.putInt(cursor + Journal.TYPE, type);
+    }
+
+    private MappedByteBuffer claimSlot() {
+        Segment seg = current;
+        if (seg != active) {
+            seg = current = active;
+            if (seg == null) return null;
+        }
+        if (seg.position + Journal.RECORD_SIZE > segmentSize) {
+            seg = roll();
+            if (seg == null) {
+                dropped.increment();
+                return null;
+            }
+        }
+        cursor = seg.position;
+        seg.position += Journal.RECORD_SIZE;
+        return seg.buffer;
+    }
+
+    private Segment roll() {
+        Segment next = prepared.getAndSet(null);
+        if (next == null) return null;
+        Segment full = current;
+        if (!retired.offer(full)) {
+            prepared.set(next);
+            return null;
+        }
+        active = current = next;
+        LockSupport.unpark(flusher);
+
+        // Each segment repeats the live symbol mappings so it can be replayed on its own.
+        for (int id = 0; id < symbols.length; id++) {
+            if (symbols[id] != null) writeSymbol(Journal.SYMBOL_ADDED, id, symbols[id], strategies[id]);
+        }
+        return next;
+    }
+
+    private void drainPendingSymbols() {
+        SymbolEvent e;
+        while ((e = pendingSymbols.poll()) != null) {
+            if (e.symbolId() >= 0 && e.symbolId() < symbols.length) {
+                symbols[e.symbolId()] = e.type() == Journal.SYMBOL_ADDED ? e.symbol() : null;
+                strategies[e.symbolId()] = e.strategy();
+            }
+            writeSymbol(e.type(), e.symbolId(), e.symbol(), e.strategy());
+        }
+    }
+
+    private void writeSymbol(int type, int symbolId, String symbol, int strategy) {
+        MappedByteBuffer b = claimSlot();
+        if (b == null) return;
+        b.putInt(cursor + Journal.SYMBOL_ID, symbolId);
+        b.putLong(cursor + Journal.TIMESTAMP, epochNanosBase + (System.nanoTime() - nanoTimeBase));
+        b.putInt(cursor + Journal.INT_A, strategy);
+        Journal.putText(b, cursor + Journal.TEXT, symbol);
+        commit(b, type);
+    }
+
+    // ======================== BACKGROUND FLUSH ========================
+    private void flushLoop() {
+        while (running) {
+            try {
+                if (prepared.get() == null) prepared.set(openSegment());
+                Segment r;
+                while ((r = retired.poll()) != null) closeSegment(r);
+                Segment a = active;
+                if (a != null) a.buffer.force();
+            } catch (Exception e) {
+                log.error("Market data recorder flush failed", e);
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        int index = nextSegmentIndex++;
+        Path path = directory.resolve(String.format("md-%s-%04d%s", sessionName, index, Journal.FILE_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        Segment segment = new Segment(path, channel, buffer);
+        buffer.putInt(Journal.SYMBOL_ID, -1);
+        buffer.putLong(Journal.TIMESTAMP, epochNanosBase + (System.nanoTime() - nanoTimeBase));
+        buffer.putInt(Journal.INT_A, Journal.MAGIC);
+        buffer.putInt(Journal.INT_B, Journal.VERSION);
+        buffer.putLong(Journal.DOUBLE_A, index);
+        buffer.putInt(Journal.TYPE, Journal.SEGMENT_HEADER);
+        segment.position = Journal.RECORD_SIZE;
+        return segment;
+    }
+
+    private void closeSegment(Segment segment) {
+        if (segment == null) return;
+        try {
+            segment.buffer.force();
+            segment.channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close journal segment {}", segment.path, e);
+        }
+    }
+}
@@ -40,27 +40,25 @@ public class ExecutionHandler implements ExecutionListener, OrderStatusListener
         lockManager.lock(symbol);
         try {
             PendingOrder po = pendingOrders.get(symbol);
-            if (po == null) return;
+            SymbolData symbolData = ib.getSymbolData().get(symbol);
+            if (po == null || symbolData == null) return;
 
             po.addFill(fillPrice, filledQty);
 
-            SymbolData symbolData = ib.getSymbolData().computeIfAbsent(symbol, s -> new SymbolData());
             int prevPos = symbolData.getPosition();
             double peakPrice = symbolData.getPeakPrice();
             int newPos;
 
             if (po.isBuy) {
                 newPos = prevPos + filledQty;
-                symbolData.setPosition(newPos);
 
                 double prevEntry = symbolData.getEntryPrice();
                 double avgEntry = (prevPos == 0)
                         ? fillPrice
                         : (prevEntry * prevPos + fillPrice * filledQty) / newPos;
-                symbolData.setEntryPrice(avgEntry);
-                symbolData.setPeakPrice(Math.max(peakPrice, fillPrice));
-                symbolData.setStopLossDelta(DynamicRiskManager.getDynamicStopLoss(avgEntry, strategyType));
-                symbolData.setStopTrailingPriceDelta(DynamicRiskManager.getDynamicTrailingStop(avgEntry, strategyType));
+                symbolData.setPositionState(newPos, avgEntry, Math.max(peakPrice, fillPrice),
+                        DynamicRiskManager.getDynamicStopLoss(avgEntry, strategyType),
+                        DynamicRiskManager.getDynamicTrailingStop(avgEntry, strategyType));
 
                 action = "BUY";
                 realizedPnL = symbolData.getRealizedPnl();
@@ -73,14 +71,10 @@ public class ExecutionHandler implements ExecutionListener, OrderStatusListener
                 if (newPos > 0) {
                     double remainingCost = prevEntry * prevPos - fillPrice * filledQty;
                     double avgEntry = remainingCost / newPos;
-                    symbolData.setEntryPrice(avgEntry);
-                    symbolData.setPosition(newPos);
+                    symbolData.setPositionState(newPos, avgEntry, peakPrice,
+                            symbolData.getStopLossDelta(), symbolData.getStopTrailingPriceDelta());
                 } else {
-                    symbolData.setEntryPrice(0.0);
-                    symbolData.setPosition(0);
-                    symbolData.setPeakPrice(0.0);
-                    symbolData.setStopLossDelta(0.0);
-                    symbolData.setStopTrailingPriceDelta(0.0);
+                    symbolData.setPositionState(0, 0.0, 0.0, 0.0, 0.0);
                 }
                 action = "SELL";
             }
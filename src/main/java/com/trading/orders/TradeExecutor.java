@@ -23,10 +23,18 @@ public class TradeExecutor {
     }
 
     private boolean isRegularMarketHours() {
-        LocalTime now = LocalTime.now();
+        LocalTime now = ib.getClock().localTime();
         return !now.isBefore(REGULAR_START) && !now.isAfter(REGULAR_END);
     }
 
+    // Outside regular hours orders are limits at the far touch, or last +/- offset while there is no two-sided quote.
+    private static double limitPrice(SymbolData data, boolean isBuy, double lastPrice) {
+        double touch = isBuy ? data.getAsk() : data.getBid();
+        if (touch > 0 && !Double.isNaN(data.getSpread())) return touch;
+        double offset = Math.min(0.10, lastPrice * 0.01);
+        return isBuy ? lastPrice + offset : lastPrice - offset;
+    }
+
     public void placeOrder(String symbol, int qty, String action) {
         if (qty <= 0) return;
 
@@ -46,8 +54,7 @@ public class TradeExecutor {
             var order = OrderBuilder.buildMKTOrder(action, qty);
             client.placeOrder(orderId, contract, order);
         } else {
-            double offset = Math.min(0.10, lastPrice * 0.01);
-            double limitPrice = isBuy ? lastPrice + offset : lastPrice - offset;
+            double limitPrice = limitPrice(data, isBuy, lastPrice);
             var order = OrderBuilder.buildLimitOrder(action, limitPrice, qty);
             client.placeOrder(orderId, contract, order);
         }
@@ -74,8 +81,7 @@ public class TradeExecutor {
             var order = OrderBuilder.buildMKTOrder("SELL", currentPos);
             client.placeOrder(orderId, contract, order);
         } else {
-            double offset = Math.min(0.10, lastPrice * 0.01);
-            double limitPrice = lastPrice - offset;
+            double limitPrice = limitPrice(symbolData, false, lastPrice);
             var order = OrderBuilder.buildLimitOrder("SELL", limitPrice, currentPos);
             client.placeOrder(orderId, contract, order);
         }
@@ -1,12 +1,12 @@
 package com.trading.orders;
 
+import com.trading.time.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.time.Instant;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -16,9 +16,11 @@ public class TradeLogger implements ExecutionHandler.TradeListener {
 
     private final String logFile;
     private final Lock lock = new ReentrantLock();
+    private final Clock clock;
 
-    public TradeLogger(String logFile) {
+    public TradeLogger(String logFile, Clock clock) {
         this.logFile = logFile;
+        this.clock = clock;
         File parent = new File(logFile).getParentFile();
         if (parent != null && !parent.exists()) {
             parent.mkdirs();
@@ -29,7 +31,7 @@ public class TradeLogger implements ExecutionHandler.TradeListener {
     public void onTradeExecuted(String symbol, String action, double price, int qty, double realizedPnL) {
         lock.lock();
         try (FileWriter fw = new FileWriter(logFile, true)) {
-            fw.write(Instant.now().toEpochMilli() + "," +
+            fw.write(clock.currentTimeMillis() + "," +
                     symbol + "," +
                     action + "," +
                     String.format("%.2f", price) + "," +
@@ -0,0 +1,106 @@
+package com.trading.replay;
+
+import com.trading.journal.Journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class JournalReader implements AutoCloseable {
+
+    private final List<Path> segments;
+    private int segmentIndex = -1;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int cursor;
+
+    public JournalReader(List<Path> segments) {
+        this.segments = List.copyOf(segments);
+    }
+
+    public static JournalReader open(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files
+                    .filter(p -> p.getFileName().toString().endsWith(Journal.FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+            if (segments.isEmpty()) throw new IOException("No journal segments in " + directory);
+            return new JournalReader(segments);
+        }
+    }
+
+    public List<Path> getSegments() {
+        return segments;
+    }
+
+    // Advances to the next record; segment headers are consumed here and never surfaced.
+    public boolean next() throws IOException {
+        while (true) {
+            if (buffer != null && position + Journal.RECORD_SIZE <= buffer.capacity()) {
+                int type = buffer.getInt(position + Journal.TYPE);
+                if (type != Journal.END) {
+                    cursor = position;
+                    position += Journal.RECORD_SIZE;
+                    if (type == Journal.SEGMENT_HEADER) continue;
+                    return true;
+                }
+            }
+            if (!openNextSegment()) return false;
+        }
+    }
+
+    private boolean openNextSegment() throws IOException {
+        closeSegment();
+        if (++segmentIndex >= segments.size()) return false;
+        Path path = segments.get(segmentIndex);
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < Journal.RECORD_SIZE
+                || buffer.getInt(Journal.TYPE) != Journal.SEGMENT_HEADER
+                || buffer.getInt(Journal.INT_A) != Journal.MAGIC) {
+            throw new IOException("Not a market data journal: " + path);
+        }
+        int version = buffer.getInt(Journal.INT_B);
+        if (version != Journal.VERSION) throw new IOException("Unsupported journal version " + version + ": " + path);
+        position = 0;
+        return true;
+    }
+
+    private void closeSegment() throws IOException {
+        buffer = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+        segmentIndex = segments.size();
+    }
+
+    // ===== Current record =====
+    public int type() { return buffer.getInt(cursor + Journal.TYPE); }
+    public int symbolId() { return buffer.getInt(cursor + Journal.SYMBOL_ID); }
+    public long timestamp() { return buffer.getLong(cursor + Journal.TIMESTAMP); }
+    public int intA() { return buffer.getInt(cursor + Journal.INT_A); }
+    public int intB() { return buffer.getInt(cursor + Journal.INT_B); }
+    public int intC() { return buffer.getInt(cursor + Journal.INT_C); }
+    public long longA() { return buffer.getLong(cursor + Journal.LONG_A); }
+    public long longB() { return buffer.getLong(cursor + Journal.LONG_B); }
+    public long longC() { return buffer.getLong(cursor + Journal.LONG_C); }
+    public double doubleA() { return buffer.getDouble(cursor + Journal.DOUBLE_A); }
+    public double doubleB() { return buffer.getDouble(cursor + Journal.DOUBLE_B); }
+    public double doubleC() { return buffer.getDouble(cursor + Journal.DOUBLE_C); }
+    public double doubleD() { return buffer.getDouble(cursor + Journal.DOUBLE_D); }
+    public String text() { return Journal.getText(buffer, cursor + Journal.TEXT); }
+}
@@ -0,0 +1,172 @@
+package com.trading.replay;
+
+import com.ib.client.Contract;
+import com.ib.client.Decimal;
+import com.ib.client.Execution;
+import com.trading.ib.IBConnector;
+import com.trading.ib.SymbolRegistry;
+import com.trading.journal.Journal;
+import com.trading.services.ScannerService;
+import com.trading.strategy.StrategyType;
+import com.trading.time.VirtualTimeScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+public class ReplayEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+    private static final StrategyType[] STRATEGIES = StrategyType.values();
+
+    private final IBConnector ib;
+    private final ScannerService scannerService;
+    private final VirtualTimeScheduler scheduler;
+
+    // Recorded symbol IDs are remapped onto the IDs the live registry hands out during this replay.
+    private int[] liveIds = new int[0];
+    private String[] recordedSymbols = new String[0];
+
+    public ReplayEngine(IBConnector ib, ScannerService scannerService, VirtualTimeScheduler scheduler) {
+        this.ib = ib;
+        this.scannerService = scannerService;
+        this.scheduler = scheduler;
+    }
+
+    public ReplayStats run(JournalReader reader, ReplayMode mode, double speed) throws IOException {
+        if (mode == ReplayMode.SCALED && speed <= 0) throw new IllegalArgumentException("speed must be positive");
+        double rate = mode == ReplayMode.SCALED ? speed : 1.0;
+
+        long events = 0;
+        long skipped = 0;
+        long firstTimestamp = Long.MIN_VALUE;
+        long lastTimestamp = 0;
+        long start = System.nanoTime();
+
+        while (reader.next()) {
+            long timestamp = reader.timestamp();
+            if (firstTimestamp == Long.MIN_VALUE) firstTimestamp = timestamp;
+            lastTimestamp = timestamp;
+            if (mode != ReplayMode.AS_FAST_AS_POSSIBLE) {
+                waitUntil(start + (long) ((timestamp - firstTimestamp) / rate));
+            }
+            if (scheduler != null) advanceEventTime(timestamp / 1_000_000);
+            if (dispatch(reader)) events++;
+            else skipped++;
+        }
+        long fed = System.nanoTime();
+
+        ib.awaitMarketDataDrained();
+        long end = System.nanoTime();
+
+        long span = firstTimestamp == Long.MIN_VALUE ? 0 : lastTimestamp - firstTimestamp;
+        ReplayStats stats = new ReplayStats(events, skipped, span, fed - start, end - start);
+        log.info("Replayed {} events ({} skipped) from {} segment(s) in {} ms: {} events/s, {}x recorded time",
+                events, skipped, reader.getSegments().size(), String.format("%.1f", stats.elapsedNanos() / 1e6),
+                String.format("%.0f", stats.eventsPerSecond()), String.format("%.1f", stats.speedup()));
+        return stats;
+    }
+
+    private boolean dispatch(JournalReader r) {
+        int type = r.type();
+        switch (type) {
+            case Journal.SYMBOL_ADDED -> {
+                onSymbolAdded(r.symbolId(), r.text(), r.intA());
+                return true;
+            }
+            case Journal.SYMBOL_REMOVED -> {
+                onSymbolRemoved(r.symbolId());
+                return true;
+            }
+            case Journal.ORDER_STATUS -> {
+                ib.orderStatus(r.intA(), Journal.statusName(r.intB()), Decimal.get(r.longC()), Decimal.get(r.longB()),
+                        r.doubleA(), 0L, 0, r.doubleB(), 0, null, 0);
+                return true;
+            }
+            case Journal.EXEC_DETAILS -> {
+                Contract contract = ib.getNewStockContract(r.text());
+                Execution execution = new Execution();
+                execution.orderId(r.intA());
+                execution.side(r.intB() > 0 ? "BOT" : "SLD");
+                execution.price(r.doubleA());
+                execution.shares(Decimal.get(r.longC()));
+                ib.execDetails(-1, contract, execution);
+                return true;
+            }
+            default -> { }
+        }
+
+        int liveId = liveIdOf(r.symbolId());
+        if (liveId == SymbolRegistry.NO_ID) return false;
+        switch (type) {
+            case Journal.TICK_PRICE -> ib.tickPrice(IBConnector.MKTDATA_OFFSET + liveId, r.intA(), r.doubleA(), null);
+            case Journal.TICK_SIZE -> ib.tickSize(IBConnector.MKTDATA_OFFSET + liveId, r.intA(), Decimal.get(r.longC()));
+            case Journal.REALTIME_BAR -> ib.realtimeBar(IBConnector.RTBAR_OFFSET + liveId, r.longA(),
+                    r.doubleA(), r.doubleB(), r.doubleC(), r.doubleD(), Decimal.get(r.longC()), null, 0);
+            case Journal.DEPTH -> ib.updateMktDepthL2(IBConnector.DEPTH_OFFSET + liveId, r.intA(), null,
+                    r.intB(), r.intC(), r.doubleA(), Decimal.get(r.longC()), true);
+            case Journal.TICK_BY_TICK_LAST -> ib.tickByTickAllLast(IBConnector.TBT_LAST_OFFSET + liveId, 2, r.longA(),
+                    r.doubleA(), Decimal.get(r.longC()), null, null, null);
+            case Journal.TICK_BY_TICK_BID_ASK -> ib.tickByTickBidAsk(IBConnector.TBT_BID_ASK_OFFSET + liveId, r.longA(),
+                    r.doubleA(), r.doubleB(), Decimal.get(r.longB()), Decimal.get(r.longC()), null);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Segments repeat the live mappings at their start, so an add for an already-mapped symbol is a no-op.
+    private void onSymbolAdded(int recordedId, String symbol, int strategyOrdinal) {
+        if (recordedId < 0 || symbol.isEmpty()) return;
+        ensureCapacity(recordedId);
+        if (symbol.equals(recordedSymbols[recordedId])) return;
+        if (recordedSymbols[recordedId] != null) onSymbolRemoved(recordedId);
+
+        StrategyType strategy = strategyOrdinal >= 0 && strategyOrdinal < STRATEGIES.length
+                ? STRATEGIES[strategyOrdinal] : STRATEGIES[0];
+        scannerService.addSymbol(symbol, strategy);
+        recordedSymbols[recordedId] = symbol;
+        liveIds[recordedId] = ib.getSymbolRegistry().idOf(symbol);
+    }
+
+    private void onSymbolRemoved(int recordedId) {
+        if (recordedId < 0 || recordedId >= recordedSymbols.length) return;
+        String symbol = recordedSymbols[recordedId];
+        if (symbol == null) return;
+        scannerService.removeSymbol(symbol);
+        recordedSymbols[recordedId] = null;
+        liveIds[recordedId] = SymbolRegistry.NO_ID;
+    }
+
+    private int liveIdOf(int recordedId) {
+        return recordedId >= 0 && recordedId < liveIds.length ? liveIds[recordedId] : SymbolRegistry.NO_ID;
+    }
+
+    private void ensureCapacity(int recordedId) {
+        if (recordedId < liveIds.length) return;
+        int size = Math.max(recordedId + 1, liveIds.length * 2);
+        int oldSize = liveIds.length;
+        liveIds = Arrays.copyOf(liveIds, size);
+        Arrays.fill(liveIds, oldSize, size, SymbolRegistry.NO_ID);
+        recordedSymbols = Arrays.copyOf(recordedSymbols, size);
+    }
+
+    // Timer tasks read pipeline state, so everything published before their deadline is processed first.
+    private void advanceEventTime(long millis) {
+        if (scheduler.nextDeadline() <= millis) ib.awaitMarketDataDrained();
+        scheduler.advanceTo(millis);
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            else Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.trading.replay;
+
+public enum ReplayMode {
+    WALL_CLOCK,
+    SCALED,
+    AS_FAST_AS_POSSIBLE
+}
@@ -0,0 +1,17 @@
+package com.trading.replay;
+
+public record ReplayStats(
+        long events,
+        long skippedEvents,
+        long recordedSpanNanos,
+        long feedNanos,
+        long elapsedNanos
+) {
+    public double eventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+    }
+
+    public double speedup() {
+        return elapsedNanos == 0 ? 0 : (double) recordedSpanNanos / elapsedNanos;
+    }
+}
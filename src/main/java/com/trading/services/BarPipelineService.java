@@ -2,10 +2,8 @@ package com.trading.services;
 
 import com.trading.datafeed.BarManager;
 import com.trading.datafeed.Timeframe;
-import com.trading.indicators.Indicator;
 import com.trading.indicators.IndicatorManager;
 import com.trading.strategy.StrategyType;
-import java.util.Set;
 
 public class BarPipelineService {
 
@@ -17,20 +15,29 @@ public class BarPipelineService {
         this.indicatorManager = indicatorManager;
     }
 
-    public void registerSymbol(String symbol, StrategyType strategy) {
-        for (var entry : strategy.getTimeframeIndicators().entrySet()) {
-            Timeframe tf = entry.getKey();
-            if (tf == Timeframe.TICK) continue;
+    // Clearing the ID unbinds its listeners and indicators, so a recycled ID starts empty.
+    public void registerSymbol(int symbolId, StrategyType strategy) {
+        barManager.clearBars(symbolId);
+        indicatorManager.resetSymbol(symbolId);
+        barManager.openStoredBars(symbolId);
+        applyStrategy(symbolId, strategy);
+    }
 
-            Set<Indicator> indicators = entry.getValue();
-            barManager.addBarCloseListener(tf, (s, bar) -> {
-                if (!s.equals(symbol)) return;
-                indicatorManager.updateOnBarClose(symbol, bar.copy(), tf, indicators, strategy);
-            });
+    // Binds a listener to each timeframe the strategy reads and unbinds the rest, then brings the symbol's live
+    // indicator nodes in line with it. Listeners go first: a bar closing in between is covered by the rebuild.
+    public void applyStrategy(int symbolId, StrategyType strategy) {
+        for (Timeframe tf : Timeframe.getBarTimeframes()) {
+            if (strategy.getIndicatorsFor(tf).isEmpty()) {
+                barManager.setBarCloseListener(symbolId, tf, null);
+            } else {
+                barManager.setBarCloseListener(symbolId, tf,
+                        (id, bar) -> indicatorManager.updateOnBarClose(id, bar, tf, strategy));
+            }
         }
+        indicatorManager.applyStrategy(symbolId, strategy);
     }
 
-    public void clearSymbol(String symbol) {
-        barManager.clearOHLCVData(symbol);
+    public void clearSymbol(int symbolId) {
+        barManager.clearBars(symbolId);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.trading.services;
 
 import com.trading.ib.IBConnector;
+import com.trading.ib.SymbolData;
+import com.trading.ib.SymbolRegistry;
 import com.trading.orders.ExecutionHandler;
 import com.trading.orders.TradeExecutor;
 import com.trading.scanner.IBKRScanner;
@@ -9,7 +11,6 @@ import com.trading.strategy.StrategyType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -51,19 +52,12 @@ public class ScannerService {
 
             for (String added : scannedSet) {
                 if (activeSymbols.contains(added)) continue;
-                StrategyType strategyType = strategyManager.getActiveStrategy(LocalTime.now());
-                ib.subscribeSymbol(added, strategyType);
-                barPipelineService.registerSymbol(added, strategyType);
-                activeSymbols.add(added);
+                addSymbol(added);
             }
 
             for (String removed : new HashSet<>(activeSymbols)) {
                 if (scannedSet.contains(removed)) continue;
-                tradeExecutor.forceSell(removed);
-                executionHandler.removePendingOrder(removed);
-                ib.unsubscribeSymbol(removed);
-                barPipelineService.clearSymbol(removed);
-                activeSymbols.remove(removed);
+                removeSymbol(removed);
             }
 
         } catch (Exception e) {
@@ -71,6 +65,35 @@ public class ScannerService {
         }
     }
 
+    public void addSymbol(String symbol) {
+        addSymbol(symbol, strategyManager.getActiveStrategy(ib.getClock().localTime()));
+    }
+
+    public void addSymbol(String symbol, StrategyType strategyType) {
+        int symbolId = ib.subscribeSymbol(symbol, strategyType);
+        barPipelineService.registerSymbol(symbolId, strategyType);
+        activeSymbols.add(symbol);
+    }
+
+    // Switches an active symbol's bar listeners and indicators to strategy when the time-of-day strategy changes.
+    public void applyStrategy(String symbol, StrategyType strategy) {
+        int symbolId = ib.getSymbolRegistry().idOf(symbol);
+        if (symbolId == SymbolRegistry.NO_ID) return;
+        SymbolData data = ib.getSymbolData(symbolId);
+        if (data == null || data.getStrategyType() == strategy) return;
+        data.setStrategyType(strategy);
+        barPipelineService.applyStrategy(symbolId, strategy);
+    }
+
+    public void removeSymbol(String symbol) {
+        tradeExecutor.forceSell(symbol);
+        executionHandler.removePendingOrder(symbol);
+        int symbolId = ib.getSymbolRegistry().idOf(symbol);
+        if (symbolId != SymbolRegistry.NO_ID) barPipelineService.clearSymbol(symbolId);
+        ib.unsubscribeSymbol(symbol);
+        activeSymbols.remove(symbol);
+    }
+
     public Set<String> getActiveSymbols() {
         return activeSymbols;
     }
@@ -2,11 +2,11 @@ package com.trading.services;
 
 import com.trading.console.Dashboard;
 import com.trading.settings.AppConfig;
+import com.trading.time.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
-import java.util.concurrent.*;
 
 public class SchedulerService {
 
@@ -14,57 +14,49 @@ public class SchedulerService {
 
     private final ScannerService scannerService;
     private final StrategyService strategyService;
-    private final ScheduledExecutorService executor;
+    private final Scheduler scheduler;
     private final Dashboard dashboard;
     private final AppConfig.SchedulerConfig config;
 
     public SchedulerService(ScannerService scannerService, StrategyService strategyService,
-                            Dashboard dashboard, AppConfig.SchedulerConfig config) {
+                            Dashboard dashboard, AppConfig.SchedulerConfig config, Scheduler scheduler) {
         this.scannerService = scannerService;
         this.strategyService = strategyService;
         this.dashboard = dashboard;
         this.config = config;
-        this.executor = Executors.newScheduledThreadPool(
-                Runtime.getRuntime().availableProcessors()
-        );
+        this.scheduler = scheduler;
     }
 
     public void start() {
-        executor.scheduleAtFixedRate(
+        scheduler.scheduleAtFixedRate(
                 scannerService::scanAndUpdate,
                 config.scanStartDelayMs(),
-                config.scanIntervalMs(),
-                TimeUnit.MILLISECONDS
+                config.scanIntervalMs()
         );
         log.info("Started scanning loop.");
 
-        executor.scheduleAtFixedRate(
-                strategyService::runEvaluation,
-                config.strategyStartDelayMs(),
-                config.strategyIntervalMs(),
-                TimeUnit.MILLISECONDS
-        );
-        log.info("Started market evaluation loop.");
+        startEvaluation();
 
-        executor.scheduleAtFixedRate(
+        scheduler.scheduleAtFixedRate(
                 Objects.requireNonNull(dashboard.printDashboard()),
                 config.printStartDelayMs(),
-                config.printIntervalMs(),
-                TimeUnit.MILLISECONDS
+                config.printIntervalMs()
         );
         log.info("Live dashboard updates enabled.");
     }
 
+    // Replay and the synthetic market decide which symbols are active themselves and run headless.
+    public void startEvaluation() {
+        scheduler.scheduleAtFixedRate(
+                strategyService::runEvaluation,
+                config.strategyStartDelayMs(),
+                config.strategyIntervalMs()
+        );
+        log.info("Started market evaluation loop.");
+    }
+
     public void stop() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        scheduler.shutdown();
         log.info("Stopped all scheduled tasks.");
     }
 }
@@ -2,21 +2,25 @@ package com.trading.services;
 
 import com.trading.strategy.StrategyManager;
 import com.trading.strategy.StrategyType;
-
-import java.time.LocalTime;
+import com.trading.time.Clock;
 
 public class StrategyService {
 
     private final StrategyManager strategyManager;
     private final ScannerService scannerService;
+    private final Clock clock;
 
-    public StrategyService(StrategyManager strategyManager, ScannerService scannerService) {
+    public StrategyService(StrategyManager strategyManager, ScannerService scannerService, Clock clock) {
         this.strategyManager = strategyManager;
         this.scannerService = scannerService;
+        this.clock = clock;
     }
 
     public void runEvaluation() {
-        StrategyType activeStrategy = strategyManager.getActiveStrategy(LocalTime.now());
-        scannerService.getActiveSymbols().forEach(symbol -> strategyManager.evaluateMarketForSymbol(symbol, activeStrategy));
+        StrategyType activeStrategy = strategyManager.getActiveStrategy(clock.localTime());
+        scannerService.getActiveSymbols().forEach(symbol -> {
+            scannerService.applyStrategy(symbol, activeStrategy);
+            strategyManager.evaluateMarketForSymbol(symbol, activeStrategy);
+        });
     }
 }
\ No newline at end of file
@@ -2,13 +2,14 @@ package com.trading.services;
 
 import com.trading.orders.ExecutionHandler;
 import com.trading.orders.TradeLogger;
+import com.trading.time.Clock;
 
 public class TradeService {
     private final ExecutionHandler executionHandler;
 
-    public TradeService(ExecutionHandler executionHandler, String logFile) {
+    public TradeService(ExecutionHandler executionHandler, String logFile, Clock clock) {
         this.executionHandler = executionHandler;
-        TradeLogger tradeLogger = new TradeLogger(logFile);
+        TradeLogger tradeLogger = new TradeLogger(logFile, clock);
 
         executionHandler.addTradeListener("logger", tradeLogger);
     }
@@ -2,6 +2,7 @@ package com.trading.settings;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.trading.datafeed.BarSource;
 
 import java.io.File;
 import java.io.InputStream;
@@ -10,7 +11,11 @@ public record AppConfig(
         ConnectionConfig connection,
         ScannerConfig scanner,
         SchedulerConfig scheduler,
-        TradingConfig trading
+        TradingConfig trading,
+        MarketDataConfig marketData,
+        RecorderConfig recorder,
+        BarStoreConfig barStore,
+        SimulationConfig simulation
 ) {
 
     public record ConnectionConfig(
@@ -45,6 +50,59 @@ public record AppConfig(
             double riskPerTradeFraction
     ) {}
 
+    public record MarketDataConfig(
+            int maxSymbols,
+            int consumerThreads,
+            int ringCapacity,
+            int drainBatchSize,
+            BarSource barSource,
+            int tickBarGraceMs,
+            int barCloseGraceMs,
+            int barTimerTickMs,
+            boolean tickByTick,
+            // Activity bar sizes; 0 keeps the Timeframe default
+            long tradesPerBar,
+            long sharesPerBar,
+            long dollarsPerBar
+    ) {
+        // The shipped application.yaml values, for a file without a marketData section
+        public static MarketDataConfig defaults() {
+            return new MarketDataConfig(1024, 2, 65536, 256, BarSource.TICKS, 100, 1000, 250, false, 0, 0, 0);
+        }
+    }
+
+    public record RecorderConfig(
+            boolean enabled,
+            String directory,
+            int segmentSizeMb,
+            int flushIntervalMs
+    ) {}
+
+    public record BarStoreConfig(
+            boolean enabled,
+            String directory,
+            int activityBarsPerFile
+    ) {}
+
+    public record SimulationConfig(
+            int symbols,
+            double eventsPerSymbolPerSecond,
+            double maxEventsPerSecond,
+            double tradeFraction,
+            double annualVolatility,
+            double jumpsPerDay,
+            double jumpStdDev,
+            int meanTradeSize,
+            int depthLevels,
+            double startPrice,
+            String startTime,
+            int durationSeconds,
+            int fillLatencyMs,
+            double accountBalance,
+            long seed,
+            int serverPort
+    ) {}
+
     public static AppConfig load() throws Exception {
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
 
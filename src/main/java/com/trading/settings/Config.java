@@ -1,6 +1,13 @@
 package com.trading.settings;
 
+import com.trading.indicators.Indicator;
+
+import java.util.Set;
+
 public record Config(double pullbackPercent, int bbPeriod, double bbMultiplier,
                      int macdFast, int macdSlow, int macdSignal,
-                     int smaPeriod, int rsiPeriod) {
+                     int smaPeriod, int rsiPeriod,
+                     int volatilityPeriod, boolean volatilityEwma, int relVolPeriod,
+                     int ofiWindow, int queueDepth, int tapeWindow,
+                     Set<Indicator> provisional) {
 }
\ No newline at end of file
@@ -1,18 +1,30 @@
 package com.trading.settings;
 
 import com.trading.datafeed.Timeframe;
+import com.trading.indicators.Indicator;
 import com.trading.strategy.StrategyType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ConfigThreshold {
 
     private static final String DEFAULT_CONFIG_PATH = "trading_config.yaml";
+    // Bars in the volatility and relative volume windows when a config block leaves them out
+    private static final int DEFAULT_WINDOW = 20;
+    // Depth events in the OFI and book pressure windows, and book levels in the queue imbalance, when left out
+    public static final int DEFAULT_EVENT_WINDOW = 100;
+    public static final int DEFAULT_QUEUE_DEPTH = 5;
+    // Prints in the volume delta and trade rate windows when left out
+    public static final int DEFAULT_TAPE_WINDOW = 50;
 
     private final Map<StrategyType, Map<Timeframe, Threshold>> thresholds = new EnumMap<>(StrategyType.class);
     private final Map<StrategyType, Map<Timeframe, Config>> configs = new EnumMap<>(StrategyType.class);
@@ -61,7 +73,13 @@ public class ConfigThreshold {
                         (Boolean) thresholdMap.getOrDefault("vwapTrendOK", true),
                         (Boolean) thresholdMap.getOrDefault("bbTrendOK", true),
                         (Boolean) thresholdMap.getOrDefault("trendOK", true),
-                        (Boolean) thresholdMap.getOrDefault("smaTrendOK", true)
+                        (Boolean) thresholdMap.getOrDefault("smaTrendOK", true),
+                        ((Number) thresholdMap.getOrDefault("minOfi", 0.0)).doubleValue(),
+                        ((Number) thresholdMap.getOrDefault("minMicropriceEdge", 0.0)).doubleValue(),
+                        ((Number) thresholdMap.getOrDefault("minQueueImbalance", 0.0)).doubleValue(),
+                        ((Number) thresholdMap.getOrDefault("minBookPressure", 0.0)).doubleValue(),
+                        ((Number) thresholdMap.getOrDefault("minVolumeDelta", 0.0)).doubleValue(),
+                        ((Number) thresholdMap.getOrDefault("minTradeRate", 0.0)).doubleValue()
                 );
                 thresholds.get(strategy).put(tf, threshold);
 
@@ -75,13 +93,35 @@ public class ConfigThreshold {
                         ((Number) configMap.getOrDefault("macdSlow", 0)).intValue(),
                         ((Number) configMap.getOrDefault("macdSignal", 0)).intValue(),
                         ((Number) configMap.getOrDefault("smaPeriod", 0)).intValue(),
-                        ((Number) configMap.getOrDefault("rsiPeriod", 0)).intValue()
+                        ((Number) configMap.getOrDefault("rsiPeriod", 0)).intValue(),
+                        ((Number) configMap.getOrDefault("volatilityPeriod", DEFAULT_WINDOW)).intValue(),
+                        (Boolean) configMap.getOrDefault("volatilityEwma", false),
+                        ((Number) configMap.getOrDefault("relVolPeriod", DEFAULT_WINDOW)).intValue(),
+                        ((Number) configMap.getOrDefault("ofiWindow", DEFAULT_EVENT_WINDOW)).intValue(),
+                        ((Number) configMap.getOrDefault("queueDepth", DEFAULT_QUEUE_DEPTH)).intValue(),
+                        ((Number) configMap.getOrDefault("tapeWindow", DEFAULT_TAPE_WINDOW)).intValue(),
+                        indicators(strategy, tf, configMap.getOrDefault("provisional", List.of()))
                 );
                 configs.get(strategy).put(tf, config);
             }
         }
     }
 
+    private static Set<Indicator> indicators(StrategyType strategy, Timeframe tf, Object value) {
+        if (!(value instanceof List<?> names)) {
+            throw new IllegalStateException(strategy + "." + tf + ".config.provisional must be a list of indicator names");
+        }
+        Set<Indicator> set = EnumSet.noneOf(Indicator.class);
+        for (Object name : names) {
+            if (!(name instanceof String)) {
+                throw new IllegalStateException(strategy + "." + tf + ".config.provisional entry " + name
+                        + " is not an indicator name");
+            }
+            set.add(Indicator.valueOf(String.valueOf(name)));
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
     public Threshold getThreshold(StrategyType strategy, Timeframe timeframe) {
         return thresholds.getOrDefault(strategy, Map.of()).get(timeframe);
     }
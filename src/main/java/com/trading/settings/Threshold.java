@@ -2,5 +2,7 @@ package com.trading.settings;
 
 public record Threshold(double minRelativeVolume, double minObImbalance, double minVolatility,
                         double minMACDDeviation, double rsiOverbought, double rsiOversold, boolean vwapTrendOK,
-                        boolean bbTrendOK, boolean trendOK, boolean smaTrendOK) {
+                        boolean bbTrendOK, boolean trendOK, boolean smaTrendOK,
+                        double minOfi, double minMicropriceEdge, double minQueueImbalance, double minBookPressure,
+                        double minVolumeDelta, double minTradeRate) {
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.trading.signals;
+
+import com.trading.datafeed.Timeframe;
+import com.trading.indicators.Indicator;
+import com.trading.indicators.IndicatorManager;
+import com.trading.settings.Config;
+import com.trading.settings.ConfigThreshold;
+import com.trading.settings.Threshold;
+import com.trading.strategy.StrategyType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// One strategy's buy or sell condition, compiled from its StrategyType indicator map and the thresholds and windows in
+// ConfigThreshold into parallel arrays with one step per (timeframe, indicator): what to read, how to compare it and
+// the constant to compare against. Evaluating it reads primitives straight from IndicatorManager, stops at the first
+// step that fails and allocates nothing. Callers hold the symbol lock.
+final class SignalProgram {
+
+    private static final Logger log = LoggerFactory.getLogger(SignalProgram.class);
+
+    private static final int AT_LEAST = 0;
+    private static final int AT_MOST = 1;
+    private static final int BELOW = 2;
+    private static final int IS = 3;
+    // No threshold for the timeframe, so the step can never pass
+    private static final int NEVER = 4;
+
+    private final boolean buy;
+    private final Indicator[] indicators;
+    private final Timeframe[] timeframes;
+    private final boolean[] provisional;
+    // Depth events, book levels or prints, for the indicators that take a window
+    private final int[] windows;
+    private final int[] tests;
+    private final double[] limits;
+    private final boolean[] expected;
+
+    private SignalProgram(boolean buy, List<Step> steps) {
+        int n = steps.size();
+        this.buy = buy;
+        this.indicators = new Indicator[n];
+        this.timeframes = new Timeframe[n];
+        this.provisional = new boolean[n];
+        this.windows = new int[n];
+        this.tests = new int[n];
+        this.limits = new double[n];
+        this.expected = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Step s = steps.get(i);
+            indicators[i] = s.indicator();
+            timeframes[i] = s.timeframe();
+            provisional[i] = s.provisional();
+            windows[i] = s.window();
+            tests[i] = s.test();
+            limits[i] = s.limit();
+            expected[i] = s.expected();
+        }
+    }
+
+    private record Step(Indicator indicator, Timeframe timeframe, boolean provisional, int window, int test,
+                        double limit, boolean expected) {}
+
+    // Steps run in timeframe then indicator declaration order, so the program does not depend on set iteration order.
+    static SignalProgram compile(StrategyType strategy, ConfigThreshold config, boolean buy) {
+        List<Step> steps = new ArrayList<>();
+        for (Timeframe tf : Timeframe.values()) {
+            Set<Indicator> used = strategy.getIndicatorsFor(tf);
+            if (used.isEmpty()) continue;
+            Threshold th = config.getThreshold(strategy, tf);
+            Config cg = config.getConfig(strategy, tf);
+            if (th == null) log.warn("No {} threshold for {}; its {} signal can never fire.", tf, strategy, buy ? "buy" : "sell");
+            for (Indicator indicator : Indicator.values()) {
+                if (!used.contains(indicator)) continue;
+                boolean prov = cg != null && cg.provisional().contains(indicator);
+                steps.add(th == null ? new Step(indicator, tf, prov, 0, NEVER, 0.0, false)
+                        : step(indicator, tf, prov, window(indicator, cg), th, buy));
+            }
+        }
+        return new SignalProgram(buy, steps);
+    }
+
+    private static Step step(Indicator ind, Timeframe tf, boolean prov, int window, Threshold th, boolean buy) {
+        return switch (ind) {
+            case RELVOL -> compare(ind, tf, prov, window, buy ? AT_LEAST : BELOW, th.minRelativeVolume());
+            case ORDERBOOK -> compare(ind, tf, prov, window, buy ? AT_LEAST : BELOW, th.minObImbalance());
+            case RSI -> compare(ind, tf, prov, window, buy ? AT_MOST : AT_LEAST, th.rsiOversold());
+            case MACD -> symmetric(ind, tf, prov, window, th.minMACDDeviation(), buy);
+            case VOLATILITY -> compare(ind, tf, prov, window, buy ? AT_LEAST : BELOW, th.minVolatility());
+            case BOLLINGER -> flag(ind, tf, prov, buy == th.bbTrendOK());
+            case SMA -> flag(ind, tf, prov, buy == th.smaTrendOK());
+            case VWAP -> flag(ind, tf, prov, buy == th.vwapTrendOK());
+            case TREND -> flag(ind, tf, prov, buy == th.trendOK());
+            case OFI -> symmetric(ind, tf, prov, window, th.minOfi(), buy);
+            case MICROPRICE -> symmetric(ind, tf, prov, window, th.minMicropriceEdge(), buy);
+            case QUEUE_IMBALANCE -> symmetric(ind, tf, prov, window, th.minQueueImbalance(), buy);
+            case BOOK_PRESSURE -> symmetric(ind, tf, prov, window, th.minBookPressure(), buy);
+            case VOLUME_DELTA -> symmetric(ind, tf, prov, window, th.minVolumeDelta(), buy);
+            case TRADE_RATE -> compare(ind, tf, prov, window, buy ? AT_LEAST : BELOW, th.minTradeRate());
+        };
+    }
+
+    private static Step compare(Indicator ind, Timeframe tf, boolean prov, int window, int test, double limit) {
+        return new Step(ind, tf, prov, window, test, limit, false);
+    }
+
+    // Buys at or above the threshold and sells at or below its negation.
+    private static Step symmetric(Indicator ind, Timeframe tf, boolean prov, int window, double min, boolean buy) {
+        return compare(ind, tf, prov, window, buy ? AT_LEAST : AT_MOST, buy ? min : -min);
+    }
+
+    // The side's own read (above VWAP for a buy, below it for a sell) must equal the configured flag; a sell wants
+    // the flag negated.
+    private static Step flag(Indicator ind, Timeframe tf, boolean prov, boolean expected) {
+        return new Step(ind, tf, prov, 0, IS, 0.0, expected);
+    }
+
+    private static int window(Indicator indicator, Config cg) {
+        return switch (indicator) {
+            case OFI, BOOK_PRESSURE -> cg != null ? cg.ofiWindow() : ConfigThreshold.DEFAULT_EVENT_WINDOW;
+            case QUEUE_IMBALANCE -> cg != null ? cg.queueDepth() : ConfigThreshold.DEFAULT_QUEUE_DEPTH;
+            case VOLUME_DELTA, TRADE_RATE -> cg != null ? cg.tapeWindow() : ConfigThreshold.DEFAULT_TAPE_WINDOW;
+            default -> 0;
+        };
+    }
+
+    boolean evaluate(IndicatorManager im, int symbolId, String symbol) {
+        for (int i = 0; i < tests.length; i++) {
+            if (passes(im, symbolId, i)) continue;
+            if (log.isTraceEnabled()) {
+                log.trace("[{}] SYMBOL: {} | Indicator: {} | TF: {} | Actual: {} | Threshold: {} | Result: false",
+                        buy ? "BUY" : "SELL", symbol, indicators[i], timeframes[i],
+                        tests[i] == IS ? flag(im, symbolId, i) : value(im, symbolId, i),
+                        tests[i] == IS ? "is " + expected[i] : describe(i));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean passes(IndicatorManager im, int symbolId, int i) {
+        return switch (tests[i]) {
+            case AT_LEAST -> value(im, symbolId, i) >= limits[i];
+            case AT_MOST -> value(im, symbolId, i) <= limits[i];
+            case BELOW -> value(im, symbolId, i) < limits[i];
+            case IS -> flag(im, symbolId, i) == expected[i];
+            default -> false;
+        };
+    }
+
+    private double value(IndicatorManager im, int symbolId, int i) {
+        Timeframe tf = timeframes[i];
+        boolean prov = provisional[i];
+        return switch (indicators[i]) {
+            case MACD -> im.getMACDHistogram(symbolId, tf, prov);
+            case RELVOL -> im.getRelativeVolume(symbolId, tf, prov);
+            case VOLATILITY -> im.getVolatility(symbolId, tf, prov);
+            case RSI -> im.getRSI(symbolId, tf, prov);
+            case ORDERBOOK -> im.getOrderBookImbalance(symbolId);
+            case OFI -> im.getOrderFlowImbalance(symbolId, windows[i]);
+            case MICROPRICE -> im.getMicropriceEdge(symbolId);
+            case QUEUE_IMBALANCE -> im.getQueueImbalance(symbolId, windows[i]);
+            case BOOK_PRESSURE -> im.getBookPressure(symbolId, windows[i]);
+            case VOLUME_DELTA -> im.getVolumeDelta(symbolId, windows[i]);
+            case TRADE_RATE -> im.getTradeRate(symbolId, windows[i]);
+            default -> Double.NaN;
+        };
+    }
+
+    private boolean flag(IndicatorManager im, int symbolId, int i) {
+        Timeframe tf = timeframes[i];
+        boolean prov = provisional[i];
+        return switch (indicators[i]) {
+            case VWAP -> buy ? im.isPriceAboveVWAP(symbolId, tf, prov) : im.isPriceBelowVWAP(symbolId, tf, prov);
+            case TREND -> buy ? im.isUptrend(symbolId, tf, prov) : im.isDowntrend(symbolId, tf, prov);
+            case BOLLINGER -> buy ? im.isBBAboveUpper(symbolId, tf, prov) : im.isBBBelowLower(symbolId, tf, prov);
+            case SMA -> buy ? im.isSMAUpTrend(symbolId, tf, prov) : im.isSMADownTrend(symbolId, tf, prov);
+            default -> false;
+        };
+    }
+
+    private String describe(int i) {
+        return switch (tests[i]) {
+            case AT_LEAST -> ">= " + limits[i];
+            case AT_MOST -> "<= " + limits[i];
+            case BELOW -> "< " + limits[i];
+            default -> "none";
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.trading.simulation;
+
+import com.trading.journal.Journal;
+import com.trading.replay.JournalReader;
+import com.trading.settings.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Loopback stand-in for TWS that speaks the socket API, so the bot can run unchanged over a real connection.
+// Streams the synthetic market, or a recorded journal, to every client that connects.
+public class FakeTwsServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeTwsServer.class);
+
+    private final AppConfig.SimulationConfig config;
+    private final Path journalDirectory;
+    private final double speed;
+    private final List<String> universe;
+    private final CopyOnWriteArrayList<TwsSession> sessions = new CopyOnWriteArrayList<>();
+
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    // A null journal directory streams the synthetic market; speed scales event time, 0 streams as fast as possible.
+    public FakeTwsServer(AppConfig.SimulationConfig config, Path journalDirectory, double speed) throws IOException {
+        this.config = config;
+        this.journalDirectory = journalDirectory;
+        this.speed = speed;
+        this.universe = journalDirectory == null ? syntheticSymbols(config.symbols()) : journalSymbols(journalDirectory);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        serverSocket = new ServerSocket(config.serverPort(), 50, InetAddress.getLoopbackAddress());
+        running = true;
+        acceptor = new Thread(this::acceptLoop, "fake-tws-accept");
+        acceptor.start();
+        log.info("Fake TWS listening on port {} with {} symbols from {} at {}.", getPort(), universe.size(),
+                journalDirectory == null ? "the synthetic market" : journalDirectory,
+                speed > 0 ? speed + "x" : "full speed");
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        Thread t = acceptor;
+        if (t != null) t.join();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        try { serverSocket.close(); } catch (IOException ignored) {}
+        sessions.forEach(TwsSession::close);
+        sessions.clear();
+        log.info("Fake TWS stopped.");
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                TwsSession session = new TwsSession(socket, config, journalDirectory, speed, universe);
+                sessions.add(session);
+                Thread t = new Thread(() -> {
+                    try {
+                        session.run();
+                    } finally {
+                        sessions.remove(session);
+                    }
+                }, "fake-tws-session");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (running) log.error("Fake TWS accept failed", e);
+            }
+        }
+    }
+
+    private static List<String> syntheticSymbols(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) symbols.add(SyntheticMarket.symbolName(i));
+        return symbols;
+    }
+
+    // The scanner answers with every symbol the journal ever subscribed, in order of first appearance.
+    private static List<String> journalSymbols(Path directory) throws IOException {
+        Set<String> symbols = new LinkedHashSet<>();
+        try (JournalReader reader = JournalReader.open(directory)) {
+            while (reader.next()) {
+                if (reader.type() == Journal.SYMBOL_ADDED) symbols.add(reader.text());
+            }
+        }
+        return List.copyOf(symbols);
+    }
+}
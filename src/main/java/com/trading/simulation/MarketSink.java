@@ -0,0 +1,21 @@
+package com.trading.simulation;
+
+// Where the synthetic market delivers its events: straight into the EWrapper callbacks, or onto a TWS socket.
+public interface MarketSink {
+    void trade(int tickerId, double price, long size);
+
+    // A BID or ASK price with its size, as TWS sends a quote tick on the market data request.
+    void quote(int tickerId, boolean bid, double price, long size);
+
+    // One print on the AllLast tick-by-tick request; time is in epoch seconds, as TWS sends it.
+    void tradeTick(int reqId, long time, double price, long size);
+
+    // Both sides of the touch on the BidAsk tick-by-tick request.
+    void quoteTick(int reqId, long time, double bid, double ask, long bidSize, long askSize);
+
+    void depth(int tickerId, int position, int side, int operation, double price, long size);
+
+    void realtimeBar(int reqId, long time, double open, double high, double low, double close, long volume, int count);
+
+    void fill(int orderId, String symbol, boolean buy, long quantity, double price);
+}
@@ -0,0 +1,101 @@
+package com.trading.simulation;
+
+import com.ib.client.*;
+
+import java.util.List;
+
+// Stands in for the TWS socket: market data requests subscribe symbols on the synthetic market and orders are filled by it.
+public class SimulatedClient extends EClientSocket {
+
+    private final EWrapper wrapper;
+    private final SyntheticMarket market;
+    private volatile boolean connected = true;
+
+    public SimulatedClient(EWrapper wrapper, EReaderSignal signal, SyntheticMarket market) {
+        super(wrapper, signal);
+        this.wrapper = wrapper;
+        this.market = market;
+    }
+
+    @Override
+    public synchronized void eConnect(String host, int port, int clientId) {
+        connected = true;
+    }
+
+    @Override
+    public synchronized void eDisconnect() {
+        connected = false;
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public synchronized void reqMktData(int tickerId, Contract contract, String genericTickList, boolean snapshot,
+                                        boolean regulatorySnapshot, List<TagValue> mktDataOptions) {
+        market.request(SyntheticMarket.MARKET_DATA, tickerId, contract.symbol());
+    }
+
+    @Override
+    public synchronized void cancelMktData(int tickerId) {
+        market.cancel(SyntheticMarket.MARKET_DATA, tickerId);
+    }
+
+    @Override
+    public synchronized void reqMktDepth(int tickerId, Contract contract, int numRows, boolean isSmartDepth,
+                                         List<TagValue> mktDepthOptions) {
+        market.request(SyntheticMarket.DEPTH, tickerId, contract.symbol());
+    }
+
+    @Override
+    public synchronized void cancelMktDepth(int tickerId, boolean isSmartDepth) {
+        market.cancel(SyntheticMarket.DEPTH, tickerId);
+    }
+
+    @Override
+    public synchronized void reqTickByTickData(int reqId, Contract contract, String tickType, int numberOfTicks,
+                                               boolean ignoreSize) {
+        market.request("BidAsk".equals(tickType) ? SyntheticMarket.TICK_BY_TICK_BID_ASK
+                : SyntheticMarket.TICK_BY_TICK_LAST, reqId, contract.symbol());
+    }
+
+    @Override
+    public synchronized void cancelTickByTickData(int reqId) {
+        market.cancel(SyntheticMarket.TICK_BY_TICK_LAST, reqId);
+        market.cancel(SyntheticMarket.TICK_BY_TICK_BID_ASK, reqId);
+    }
+
+    @Override
+    public synchronized void reqRealTimeBars(int tickerId, Contract contract, int barSize, String whatToShow,
+                                             boolean useRTH, List<TagValue> realTimeBarsOptions) {
+        market.request(SyntheticMarket.BARS, tickerId, contract.symbol());
+    }
+
+    @Override
+    public synchronized void cancelRealTimeBars(int tickerId) {
+        market.cancel(SyntheticMarket.BARS, tickerId);
+    }
+
+    @Override
+    public synchronized void placeOrder(int id, Contract contract, Order order) {
+        market.submitOrder(id, contract.symbol(), order);
+    }
+
+    @Override
+    public synchronized void reqAccountSummary(int reqId, String group, String tags) { }
+
+    @Override
+    public synchronized void reqIds(int numIds) { }
+
+    @Override
+    public synchronized void reqScannerSubscription(int tickerId, ScannerSubscription subscription,
+                                                    List<TagValue> scannerSubscriptionOptions,
+                                                    List<TagValue> scannerSubscriptionFilterOptions) {
+        wrapper.scannerDataEnd(tickerId);
+    }
+
+    @Override
+    public synchronized void cancelScannerSubscription(int tickerId) { }
+}
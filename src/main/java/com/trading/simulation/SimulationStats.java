@@ -0,0 +1,18 @@
+package com.trading.simulation;
+
+public record SimulationStats(
+        int symbols,
+        long events,
+        long fills,
+        long simulatedMillis,
+        long elapsedNanos,
+        long maxBacklog
+) {
+    public double eventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+    }
+
+    public double speedup() {
+        return elapsedNanos == 0 ? 0 : simulatedMillis * 1e6 / elapsedNanos;
+    }
+}
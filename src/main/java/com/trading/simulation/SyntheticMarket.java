@@ -0,0 +1,574 @@
+package com.trading.simulation;
+
+import com.ib.client.Decimal;
+import com.ib.client.Execution;
+import com.ib.client.Order;
+import com.ib.client.TickAttribBidAsk;
+import com.ib.client.TickAttribLast;
+import com.ib.client.TickType;
+import com.trading.ib.IBConnector;
+import com.trading.services.ScannerService;
+import com.trading.settings.AppConfig;
+import com.trading.time.VirtualTimeScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Fakes the TWS reader thread: every event is issued from the thread driving the market, so the ring buffers keep a single producer.
+public class SyntheticMarket {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticMarket.class);
+
+    public static final int MARKET_DATA = 0;
+    public static final int DEPTH = 1;
+    public static final int BARS = 2;
+    public static final int TICK_BY_TICK_LAST = 3;
+    public static final int TICK_BY_TICK_BID_ASK = 4;
+
+    private static final int ASK = 0;
+    private static final int BID = 1;
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final double TICK = 0.01;
+    private static final int BAR_SECONDS = 5;
+    private static final double TRADING_SECONDS_PER_YEAR = 252 * 23_400.0;
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+
+    private record Request(int kind, int reqId, String symbol, boolean subscribe) {}
+
+    private record SimOrder(int orderId, String symbol, boolean buy, long quantity, boolean limit, double limitPrice) {}
+
+    private record WorkingOrder(SimOrder order, long dueMillis) {}
+
+    private final AppConfig.SimulationConfig config;
+    private final SplittableRandom random;
+    private final int levels;
+    private final double volatilityPerSqrtSecond;
+    private final double jumpsPerSecond;
+
+    private final ConcurrentLinkedQueue<Request> requests = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<SimOrder> submittedOrders = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<WorkingOrder> workingOrders = new ArrayDeque<>();
+    private final Map<String, Integer> slotBySymbol = new HashMap<>();
+    private final Map<Long, Integer> slotByRequest = new HashMap<>();
+
+    private MarketSink sink;
+    private volatile boolean running;
+
+    // Per symbol, indexed by the market's own slot; request IDs are -1 until the client asks for that stream
+    private String[] symbols;
+    private int[][] reqIds;
+    private int[] activeIndex;
+    private int[] active;
+    private int activeCount;
+    private double[] price;
+    private double[] lastUpdateSeconds;
+    private double[] barOpen, barHigh, barLow, barClose;
+    private long[] barVolume;
+    private int[] barCount;
+    private long[] bestBidTicks;
+    // Indexed by (slot * 2 + side) * levels + position
+    private long[] levelTicks;
+    private long[] levelSize;
+
+    private double simSeconds;
+    private double nextBarSeconds;
+    private long startMillis;
+    private long events;
+    private long fills;
+
+    public SyntheticMarket(AppConfig.SimulationConfig config) {
+        this.config = config;
+        this.random = new SplittableRandom(config.seed());
+        this.levels = Math.max(1, config.depthLevels());
+        this.volatilityPerSqrtSecond = config.annualVolatility() / Math.sqrt(TRADING_SECONDS_PER_YEAR);
+        this.jumpsPerSecond = config.jumpsPerDay() / 23_400.0;
+    }
+
+    // ======================== CLIENT-SIDE REQUESTS (any thread) ========================
+    public void request(int kind, int reqId, String symbol) {
+        requests.offer(new Request(kind, reqId, symbol, true));
+    }
+
+    public void cancel(int kind, int reqId) {
+        requests.offer(new Request(kind, reqId, null, false));
+    }
+
+    public void submitOrder(int orderId, String symbol, Order order) {
+        long quantity = order.totalQuantity() == null ? 0L : order.totalQuantity().longValue();
+        submitOrder(orderId, symbol, "BUY".equalsIgnoreCase(order.getAction()), quantity,
+                "LMT".equalsIgnoreCase(order.getOrderType()), order.lmtPrice());
+    }
+
+    public void submitOrder(int orderId, String symbol, boolean buy, long quantity, boolean limit, double limitPrice) {
+        submittedOrders.offer(new SimOrder(orderId, symbol, buy, quantity, limit, limitPrice));
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getEvents() { return events; }
+    public long getFills() { return fills; }
+    public int getActiveSymbols() { return activeCount; }
+    public long currentMillis() { return startMillis + (long) (simSeconds * 1000); }
+
+    // ======================== IN-PROCESS RUN ========================
+    public SimulationStats run(IBConnector ib, ScannerService scannerService, VirtualTimeScheduler scheduler) {
+        LocalTime open = LocalTime.parse(config.startTime());
+        long openMillis = LocalDate.now(scheduler.clock().zone()).atTime(open)
+                .atZone(scheduler.clock().zone()).toInstant().toEpochMilli();
+        open(new WrapperSink(ib), ib.getSymbolRegistry().capacity(), openMillis);
+        scheduler.advanceTo(openMillis);
+
+        ib.nextValidId(1);
+        ib.accountSummary(9001, "SIM", "AvailableFunds", Double.toString(config.accountBalance()), "USD");
+
+        int symbolCount = config.symbols();
+        if (symbolCount > ib.getSymbolRegistry().capacity()) {
+            log.warn("Simulation asks for {} symbols but marketData.maxSymbols is {}; capping.",
+                    symbolCount, ib.getSymbolRegistry().capacity());
+            symbolCount = ib.getSymbolRegistry().capacity();
+        }
+        for (int i = 0; i < symbolCount; i++) {
+            scannerService.addSymbol(symbolName(i));
+        }
+        applyRequests();
+        log.info("Synthetic market started with {} symbols at {} events/s per symbol.",
+                activeCount, config.eventsPerSymbolPerSecond());
+
+        long start = System.nanoTime();
+        long lastProgress = start;
+        long lastProgressEvents = 0;
+        long maxBacklog = 0;
+        long steps = 0;
+        double maxEventsPerSecond = config.maxEventsPerSecond();
+
+        while (running && simSeconds < config.durationSeconds()) {
+            if (!advance()) break;
+            long nowMillis = currentMillis();
+            if (scheduler.nextDeadline() <= nowMillis) ib.awaitMarketDataDrained();
+            scheduler.advanceTo(nowMillis);
+            emit();
+
+            if ((++steps & 4095) == 0) {
+                long now = System.nanoTime();
+                maxBacklog = Math.max(maxBacklog, ib.getMarketDataBacklog());
+                if (maxEventsPerSecond > 0) {
+                    long due = start + (long) (events * 1e9 / maxEventsPerSecond);
+                    if (due > now) LockSupport.parkNanos(due - now);
+                }
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    log.info("Synthetic market: {} events/s, backlog {}, simulated {}s",
+                            String.format("%.0f", (events - lastProgressEvents) * 1e9 / (now - lastProgress)),
+                            ib.getMarketDataBacklog(), (long) simSeconds);
+                    lastProgress = now;
+                    lastProgressEvents = events;
+                }
+            }
+        }
+
+        ib.awaitMarketDataDrained();
+        running = false;
+        SimulationStats stats = new SimulationStats(activeCount, events, fills, (long) (simSeconds * 1000),
+                System.nanoTime() - start, maxBacklog);
+        log.info("Synthetic market finished: {} events for {} symbols in {} ms ({} events/s, {}x real time), {} fills, max backlog {}",
+                stats.events(), stats.symbols(), String.format("%.1f", stats.elapsedNanos() / 1e6),
+                String.format("%.0f", stats.eventsPerSecond()), String.format("%.1f", stats.speedup()),
+                stats.fills(), stats.maxBacklog());
+        return stats;
+    }
+
+    public static String symbolName(int index) {
+        return String.format("SYN%04d", index);
+    }
+
+    // ======================== GENERATOR (driving thread) ========================
+    public void open(MarketSink sink, int capacity, long startMillis) {
+        this.sink = sink;
+        this.startMillis = startMillis;
+        this.simSeconds = 0;
+        this.nextBarSeconds = BAR_SECONDS;
+        allocate(capacity);
+        running = true;
+    }
+
+    // Draws the time of the next event and publishes any bars that close before it. False when nothing is subscribed.
+    public boolean advance() {
+        if (!requests.isEmpty()) applyRequests();
+        if (activeCount == 0) return false;
+        simSeconds += random.nextExponential() / (activeCount * config.eventsPerSymbolPerSecond());
+        publishDueBars();
+        return true;
+    }
+
+    // Lets simulated time follow the wall clock while no symbol is subscribed.
+    public void idleUntil(long millis) {
+        if (!requests.isEmpty()) applyRequests();
+        simSeconds = Math.max(simSeconds, (millis - startMillis) / 1000.0);
+        publishDueBars();
+        fillOrders(currentMillis());
+    }
+
+    // Delivers due fills, then one trade or book change for a random subscribed symbol.
+    public void emit() {
+        fillOrders(currentMillis());
+        if (activeCount == 0) return;
+        int slot = active[random.nextInt(activeCount)];
+        evolvePrice(slot);
+        if (random.nextDouble() < config.tradeFraction()) trade(slot);
+        else churnBook(slot);
+    }
+
+    private void allocate(int capacity) {
+        symbols = new String[capacity];
+        reqIds = new int[5][capacity];
+        for (int[] ids : reqIds) Arrays.fill(ids, -1);
+        activeIndex = new int[capacity];
+        Arrays.fill(activeIndex, -1);
+        active = new int[capacity];
+        activeCount = 0;
+        price = new double[capacity];
+        lastUpdateSeconds = new double[capacity];
+        barOpen = new double[capacity];
+        barHigh = new double[capacity];
+        barLow = new double[capacity];
+        barClose = new double[capacity];
+        barVolume = new long[capacity];
+        barCount = new int[capacity];
+        bestBidTicks = new long[capacity];
+        levelTicks = new long[capacity * 2 * levels];
+        levelSize = new long[capacity * 2 * levels];
+        slotBySymbol.clear();
+        slotByRequest.clear();
+    }
+
+    private void applyRequests() {
+        Request r;
+        while ((r = requests.poll()) != null) {
+            long key = ((long) r.kind() << 32) | (r.reqId() & 0xFFFFFFFFL);
+            if (r.subscribe()) {
+                int slot = slotOf(r.symbol());
+                if (slot < 0) continue;
+                reqIds[r.kind()][slot] = r.reqId();
+                slotByRequest.put(key, slot);
+                if (activeIndex[slot] < 0) activate(slot);
+                else if (r.kind() == DEPTH) buildBook(slot);
+            } else {
+                Integer slot = slotByRequest.remove(key);
+                if (slot == null) continue;
+                reqIds[r.kind()][slot] = -1;
+                if (!subscribed(slot)) deactivate(slot);
+            }
+        }
+    }
+
+    private boolean subscribed(int slot) {
+        for (int[] ids : reqIds) if (ids[slot] >= 0) return true;
+        return false;
+    }
+
+    private int slotOf(String symbol) {
+        Integer slot = slotBySymbol.get(symbol);
+        if (slot != null) return slot;
+        if (slotBySymbol.size() >= symbols.length) {
+            log.warn("Synthetic market is full ({} symbols); ignoring {}.", symbols.length, symbol);
+            return -1;
+        }
+        int next = slotBySymbol.size();
+        slotBySymbol.put(symbol, next);
+        symbols[next] = symbol;
+        return next;
+    }
+
+    private void activate(int slot) {
+        activeIndex[slot] = activeCount;
+        active[activeCount++] = slot;
+        price[slot] = config.startPrice() * Math.exp(0.5 * random.nextGaussian());
+        lastUpdateSeconds[slot] = simSeconds;
+        startBar(slot);
+        buildBook(slot);
+    }
+
+    private void deactivate(int slot) {
+        int index = activeIndex[slot];
+        int last = active[--activeCount];
+        active[index] = last;
+        activeIndex[last] = index;
+        activeIndex[slot] = -1;
+    }
+
+    // ======================== PRICE PROCESS ========================
+    // Geometric random walk with Poisson jumps, evolved lazily over the time since the symbol last moved.
+    private void evolvePrice(int id) {
+        double dt = simSeconds - lastUpdateSeconds[id];
+        lastUpdateSeconds[id] = simSeconds;
+        if (dt <= 0) return;
+        double sigma = volatilityPerSqrtSecond;
+        double logReturn = -0.5 * sigma * sigma * dt + sigma * Math.sqrt(dt) * random.nextGaussian();
+        if (random.nextDouble() < jumpsPerSecond * dt) logReturn += config.jumpStdDev() * random.nextGaussian();
+        price[id] = Math.max(TICK, price[id] * Math.exp(logReturn));
+        rebook(id);
+    }
+
+    private void trade(int id) {
+        double tradePrice = Math.round(price[id] / TICK) * TICK;
+        long size = tradeSize();
+        if (barCount[id] == 0) barOpen[id] = barHigh[id] = barLow[id] = tradePrice;
+        barHigh[id] = Math.max(barHigh[id], tradePrice);
+        barLow[id] = Math.min(barLow[id], tradePrice);
+        barClose[id] = tradePrice;
+        barVolume[id] += size;
+        barCount[id]++;
+
+        int tickReqId = reqIds[TICK_BY_TICK_LAST][id];
+        if (tickReqId >= 0) {
+            sink.tradeTick(tickReqId, currentMillis() / 1000, tradePrice, size);
+            events++;
+        }
+        int reqId = reqIds[MARKET_DATA][id];
+        if (reqId < 0) return;
+        sink.trade(reqId, tradePrice, size);
+        events += 2;
+    }
+
+    private long tradeSize() {
+        double mean = Math.max(1, config.meanTradeSize());
+        if (mean > 30) return Math.max(1, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        double limit = Math.exp(-mean);
+        double p = random.nextDouble();
+        long k = 0;
+        while (p > limit) {
+            p *= random.nextDouble();
+            k++;
+        }
+        return Math.max(1, k);
+    }
+
+    // ======================== REAL-TIME BARS ========================
+    private void publishDueBars() {
+        while (simSeconds >= nextBarSeconds) {
+            publishBars((long) nextBarSeconds);
+            nextBarSeconds += BAR_SECONDS;
+        }
+    }
+
+    private void publishBars(long barEndSeconds) {
+        long barTime = startMillis / 1000 + barEndSeconds - BAR_SECONDS;
+        for (int i = 0; i < activeCount; i++) {
+            int id = active[i];
+            int reqId = reqIds[BARS][id];
+            if (reqId < 0) {
+                startBar(id);
+                continue;
+            }
+            double close = barCount[id] == 0 ? Math.round(price[id] / TICK) * TICK : barClose[id];
+            double o = barCount[id] == 0 ? close : barOpen[id];
+            double h = barCount[id] == 0 ? close : barHigh[id];
+            double l = barCount[id] == 0 ? close : barLow[id];
+            sink.realtimeBar(reqId, barTime, o, h, l, close, barVolume[id], barCount[id]);
+            events++;
+            startBar(id);
+        }
+    }
+
+    private void startBar(int id) {
+        barVolume[id] = 0;
+        barCount[id] = 0;
+    }
+
+    // ======================== L2 BOOK ========================
+    private int level(int id, int side, int position) {
+        return (id * 2 + side) * levels + position;
+    }
+
+    private long levelPrice(long best, int side, int position) {
+        return side == BID ? best - position : best + position;
+    }
+
+    private long depthSize() {
+        double mean = Math.max(100, config.meanTradeSize() * 5.0);
+        return Math.max(100, Math.round(mean * Math.exp(0.75 * random.nextGaussian()) / 100) * 100);
+    }
+
+    private void buildBook(int id) {
+        long bid = (long) Math.floor(price[id] / TICK);
+        bestBidTicks[id] = bid;
+        for (int side = ASK; side <= BID; side++) {
+            long best = side == BID ? bid : bid + 1;
+            for (int pos = 0; pos < levels; pos++) {
+                int l = level(id, side, pos);
+                levelTicks[l] = levelPrice(best, side, pos);
+                levelSize[l] = depthSize();
+                depth(id, pos, side, INSERT, levelTicks[l], levelSize[l]);
+            }
+        }
+        quote(id, BID);
+        quote(id, ASK);
+    }
+
+    // Shifts the book by whole levels when the touch moves, the way TWS reports it: deletes for levels that fall off, inserts for new ones.
+    private void rebook(int id) {
+        long newBid = (long) Math.floor(price[id] / TICK);
+        long oldBid = bestBidTicks[id];
+        if (newBid == oldBid) return;
+        bestBidTicks[id] = newBid;
+
+        for (int side = ASK; side <= BID; side++) {
+            long best = side == BID ? newBid : newBid + 1;
+            long improvement = side == BID ? newBid - oldBid : oldBid - newBid;
+            int shift = (int) Math.min(levels, Math.abs(improvement));
+            int base = level(id, side, 0);
+            if (improvement > 0) {
+                for (int pos = levels - 1; pos >= levels - shift; pos--) {
+                    depth(id, pos, side, DELETE, levelTicks[base + pos], 0);
+                }
+                System.arraycopy(levelTicks, base, levelTicks, base + shift, levels - shift);
+                System.arraycopy(levelSize, base, levelSize, base + shift, levels - shift);
+                for (int pos = 0; pos < shift; pos++) {
+                    levelTicks[base + pos] = levelPrice(best, side, pos);
+                    levelSize[base + pos] = depthSize();
+                    depth(id, pos, side, INSERT, levelTicks[base + pos], levelSize[base + pos]);
+                }
+            } else {
+                for (int i = 0; i < shift; i++) {
+                    depth(id, 0, side, DELETE, levelTicks[base + i], 0);
+                }
+                System.arraycopy(levelTicks, base + shift, levelTicks, base, levels - shift);
+                System.arraycopy(levelSize, base + shift, levelSize, base, levels - shift);
+                for (int pos = levels - shift; pos < levels; pos++) {
+                    levelTicks[base + pos] = levelPrice(best, side, pos);
+                    levelSize[base + pos] = depthSize();
+                    depth(id, pos, side, INSERT, levelTicks[base + pos], levelSize[base + pos]);
+                }
+            }
+        }
+        quote(id, BID);
+        quote(id, ASK);
+    }
+
+    // Size churn concentrates near the touch.
+    private void churnBook(int id) {
+        int side = random.nextBoolean() ? BID : ASK;
+        int pos = Math.min(levels - 1, (int) (random.nextExponential() * levels / 4.0));
+        int l = level(id, side, pos);
+        levelSize[l] = depthSize();
+        depth(id, pos, side, UPDATE, levelTicks[l], levelSize[l]);
+        if (pos == 0) quote(id, side);
+    }
+
+    // The touch goes out on the market data request, and both sides of it on the BidAsk tick-by-tick request,
+    // independently of any depth subscription.
+    private void quote(int id, int side) {
+        int tickReqId = reqIds[TICK_BY_TICK_BID_ASK][id];
+        if (tickReqId >= 0) {
+            sink.quoteTick(tickReqId, currentMillis() / 1000, bestBidTicks[id] * TICK, (bestBidTicks[id] + 1) * TICK,
+                    levelSize[level(id, BID, 0)], levelSize[level(id, ASK, 0)]);
+            events++;
+        }
+        int reqId = reqIds[MARKET_DATA][id];
+        if (reqId < 0) return;
+        long ticks = side == BID ? bestBidTicks[id] : bestBidTicks[id] + 1;
+        sink.quote(reqId, side == BID, ticks * TICK, levelSize[level(id, side, 0)]);
+        events += 2;
+    }
+
+    private void depth(int id, int position, int side, int operation, long ticks, long size) {
+        int reqId = reqIds[DEPTH][id];
+        if (reqId < 0) return;
+        sink.depth(reqId, position, side, operation, ticks * TICK, size);
+        events++;
+    }
+
+    // ======================== ORDER FILLS ========================
+    private void fillOrders(long nowMillis) {
+        SimOrder o;
+        while ((o = submittedOrders.poll()) != null) workingOrders.addLast(new WorkingOrder(o, nowMillis + config.fillLatencyMs()));
+        WorkingOrder w;
+        while ((w = workingOrders.peekFirst()) != null && w.dueMillis() <= nowMillis) {
+            workingOrders.pollFirst();
+            fill(w.order());
+        }
+    }
+
+    private void fill(SimOrder o) {
+        if (o.quantity() <= 0) return;
+        Integer slot = slotBySymbol.get(o.symbol());
+        double touch = slot != null && price[slot] > 0
+                ? (o.buy() ? bestBidTicks[slot] + 1 : bestBidTicks[slot]) * TICK : o.limitPrice();
+        double fillPrice = o.limit() ? o.limitPrice() : touch;
+        sink.fill(o.orderId(), o.symbol(), o.buy(), o.quantity(), fillPrice);
+        fills++;
+    }
+
+    // ======================== IN-PROCESS DELIVERY ========================
+    private static final class WrapperSink implements MarketSink {
+        private final IBConnector ib;
+
+        WrapperSink(IBConnector ib) {
+            this.ib = ib;
+        }
+
+        @Override
+        public void trade(int tickerId, double price, long size) {
+            ib.tickPrice(tickerId, TickType.LAST.index(), price, null);
+            ib.tickSize(tickerId, TickType.LAST_SIZE.index(), Decimal.get(size));
+        }
+
+        @Override
+        public void quote(int tickerId, boolean bid, double price, long size) {
+            ib.tickPrice(tickerId, (bid ? TickType.BID : TickType.ASK).index(), price, null);
+            ib.tickSize(tickerId, (bid ? TickType.BID_SIZE : TickType.ASK_SIZE).index(), Decimal.get(size));
+        }
+
+        @Override
+        public void tradeTick(int reqId, long time, double price, long size) {
+            ib.tickByTickAllLast(reqId, 2, time, price, Decimal.get(size), new TickAttribLast(), "", "");
+        }
+
+        @Override
+        public void quoteTick(int reqId, long time, double bid, double ask, long bidSize, long askSize) {
+            ib.tickByTickBidAsk(reqId, time, bid, ask, Decimal.get(bidSize), Decimal.get(askSize), new TickAttribBidAsk());
+        }
+
+        @Override
+        public void depth(int tickerId, int position, int side, int operation, double price, long size) {
+            ib.updateMktDepthL2(tickerId, position, "", side, operation, price, Decimal.get(size), true);
+        }
+
+        @Override
+        public void realtimeBar(int reqId, long time, double open, double high, double low, double close,
+                                long volume, int count) {
+            ib.realtimeBar(reqId, time, open, high, low, close, Decimal.get(volume), Decimal.get(close), count);
+        }
+
+        @Override
+        public void fill(int orderId, String symbol, boolean buy, long quantity, double price) {
+            Decimal qty = Decimal.get(quantity);
+            ib.orderStatus(orderId, "Submitted", Decimal.ZERO, qty, 0, 0, 0, 0, 0, null, 0);
+
+            Execution execution = new Execution();
+            execution.orderId(orderId);
+            execution.side(buy ? "BOT" : "SLD");
+            execution.price(price);
+            execution.shares(qty);
+            ib.execDetails(-1, ib.getNewStockContract(symbol), execution);
+
+            ib.orderStatus(orderId, "Filled", qty, Decimal.ZERO, price, 0, 0, price, 0, null, 0);
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package com.trading.simulation;
+
+import com.ib.client.TickType;
+import com.trading.journal.Journal;
+import com.trading.replay.JournalReader;
+import com.trading.settings.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// One API client connection: the socket thread decodes requests and answers them, a feed thread streams market data.
+final class TwsSession implements Runnable, MarketSink {
+
+    private static final Logger log = LoggerFactory.getLogger(TwsSession.class);
+
+    // Old enough that the client skips protobuf and the newer per-message fields, new enough for smart depth and Decimal sizes.
+    static final int SERVER_VERSION = 176;
+    private static final String ACCOUNT = "DU0000001";
+    private static final DateTimeFormatter TWS_TIME = DateTimeFormatter.ofPattern("yyyyMMdd HH:mm:ss z");
+    private static final DateTimeFormatter EXEC_TIME = DateTimeFormatter.ofPattern("yyyyMMdd  HH:mm:ss");
+    private static final long IDLE_NANOS = 10_000_000L;
+    private static final long MIN_PARK_NANOS = 200_000L;
+
+    // Incoming message IDs
+    private static final int REQ_MKT_DATA = 1;
+    private static final int CANCEL_MKT_DATA = 2;
+    private static final int PLACE_ORDER = 3;
+    private static final int REQ_IDS = 8;
+    private static final int REQ_MKT_DEPTH = 10;
+    private static final int CANCEL_MKT_DEPTH = 11;
+    private static final int REQ_SCANNER_SUBSCRIPTION = 22;
+    private static final int REQ_REAL_TIME_BARS = 50;
+    private static final int CANCEL_REAL_TIME_BARS = 51;
+    private static final int REQ_ACCOUNT_SUMMARY = 62;
+    private static final int START_API = 71;
+    private static final int REQ_TICK_BY_TICK_DATA = 97;
+    private static final int CANCEL_TICK_BY_TICK_DATA = 98;
+
+    // Outgoing message IDs
+    private static final int TICK_PRICE = 1;
+    private static final int TICK_SIZE = 2;
+    private static final int ORDER_STATUS = 3;
+    private static final int NEXT_VALID_ID = 9;
+    private static final int EXECUTION_DATA = 11;
+    private static final int MARKET_DEPTH_L2 = 13;
+    private static final int MANAGED_ACCTS = 15;
+    private static final int SCANNER_DATA = 20;
+    private static final int REAL_TIME_BARS = 50;
+    private static final int ACCOUNT_SUMMARY = 63;
+    private static final int ACCOUNT_SUMMARY_END = 64;
+    private static final int TICK_BY_TICK = 99;
+
+    // PLACE_ORDER field positions
+    private static final int ORDER_SYMBOL = 3;
+    private static final int ORDER_ACTION = 16;
+    private static final int ORDER_QUANTITY = 17;
+    private static final int ORDER_TYPE = 18;
+    private static final int ORDER_LIMIT_PRICE = 19;
+
+    private record PendingFill(int orderId, String symbol, boolean buy, long quantity, boolean limit, double limitPrice,
+                               long dueNanos) {}
+
+    private final Socket socket;
+    private final AppConfig.SimulationConfig config;
+    private final Path journalDirectory;
+    private final double speed;
+    private final List<String> universe;
+    private final WireWriter writer;
+
+    private final SyntheticMarket market;
+    // Journal feed: client request IDs by symbol, and orders waiting for their fill latency
+    private final Map<String, Integer> mktReqIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> depthReqIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> barReqIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> tradeTickReqIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> quoteTickReqIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> symbolByReqId = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingFill> pendingFills = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger nextOrderId = new AtomicInteger(1);
+    private int clientId;
+    private int executions;
+    private long messages;
+    private volatile boolean closed;
+    private Thread feed;
+
+    TwsSession(Socket socket, AppConfig.SimulationConfig config, Path journalDirectory, double speed,
+               List<String> universe) throws IOException {
+        this.socket = socket;
+        this.config = config;
+        this.journalDirectory = journalDirectory;
+        this.speed = speed;
+        this.universe = universe;
+        this.writer = new WireWriter(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        this.market = journalDirectory == null ? new SyntheticMarket(config) : null;
+    }
+
+    @Override
+    public void run() {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (!handshake(in)) return;
+            while (!closed) {
+                String[] fields = read(in);
+                if (fields.length > 0 && !fields[0].isEmpty()) handle(fields);
+            }
+        } catch (EOFException | SocketException e) {
+            log.info("API client {} disconnected.", clientId);
+        } catch (Exception e) {
+            log.error("Fake TWS session failed", e);
+        } finally {
+            close();
+        }
+    }
+
+    void close() {
+        if (closed) return;
+        closed = true;
+        if (market != null) market.stop();
+        try { socket.close(); } catch (IOException ignored) {}
+        Thread f = feed;
+        if (f != null) LockSupport.unpark(f);
+    }
+
+    // ======================== HANDSHAKE ========================
+    private boolean handshake(DataInputStream in) throws IOException {
+        byte[] prefix = new byte[4];
+        in.readFully(prefix);
+        if (!"API\0".equals(new String(prefix, StandardCharsets.US_ASCII))) {
+            log.warn("Rejecting connection from {}: not an API client.", socket.getRemoteSocketAddress());
+            return false;
+        }
+        String versions = new String(readFrame(in), StandardCharsets.US_ASCII).trim();
+        if (versions.startsWith("v")) {
+            String[] range = versions.substring(1).split(" ")[0].split("\\.\\.");
+            int min = Integer.parseInt(range[0]);
+            int max = range.length > 1 ? Integer.parseInt(range[1]) : min;
+            if (min > SERVER_VERSION || max < SERVER_VERSION) {
+                log.warn("API client wants versions {}; fake TWS speaks {}.", versions, SERVER_VERSION);
+                return false;
+            }
+        }
+        synchronized (writer) {
+            writer.begin(SERVER_VERSION).add(TWS_TIME.format(ZonedDateTime.now())).end();
+            writer.flush();
+        }
+        return true;
+    }
+
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > (1 << 24)) throw new IOException("Bad message length " + length);
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    private static String[] read(DataInputStream in) throws IOException {
+        return new String(readFrame(in), StandardCharsets.UTF_8).split("\0", -1);
+    }
+
+    // ======================== REQUESTS (socket thread) ========================
+    private void handle(String[] f) throws IOException {
+        switch (Integer.parseInt(f[0])) {
+            case START_API -> {
+                clientId = parseInt(f[2]);
+                synchronized (writer) {
+                    writer.begin(NEXT_VALID_ID).add(1).add(nextOrderId.get()).end();
+                    writer.begin(MANAGED_ACCTS).add(1).add(ACCOUNT).end();
+                    writer.flush();
+                }
+                log.info("API client {} connected from {}.", clientId, socket.getRemoteSocketAddress());
+                startFeed();
+            }
+            case REQ_IDS -> {
+                synchronized (writer) {
+                    writer.begin(NEXT_VALID_ID).add(1).add(nextOrderId.get()).end();
+                    writer.flush();
+                }
+            }
+            case REQ_ACCOUNT_SUMMARY -> accountSummary(parseInt(f[2]), f[4]);
+            case REQ_SCANNER_SUBSCRIPTION -> scannerData(parseInt(f[1]), parseInt(f[2]));
+            case REQ_MKT_DATA -> subscribe(SyntheticMarket.MARKET_DATA, parseInt(f[2]), f[4]);
+            case REQ_MKT_DEPTH -> subscribe(SyntheticMarket.DEPTH, parseInt(f[2]), f[4]);
+            case REQ_REAL_TIME_BARS -> subscribe(SyntheticMarket.BARS, parseInt(f[2]), f[4]);
+            case CANCEL_MKT_DATA -> unsubscribe(SyntheticMarket.MARKET_DATA, parseInt(f[2]));
+            case CANCEL_MKT_DEPTH -> unsubscribe(SyntheticMarket.DEPTH, parseInt(f[2]));
+            case CANCEL_REAL_TIME_BARS -> unsubscribe(SyntheticMarket.BARS, parseInt(f[2]));
+            case REQ_TICK_BY_TICK_DATA -> subscribe("BidAsk".equals(f[14]) ? SyntheticMarket.TICK_BY_TICK_BID_ASK
+                    : SyntheticMarket.TICK_BY_TICK_LAST, parseInt(f[1]), f[3]);
+            case CANCEL_TICK_BY_TICK_DATA -> {
+                // The cancel does not say which stream the request ID was for
+                unsubscribe(SyntheticMarket.TICK_BY_TICK_LAST, parseInt(f[1]));
+                unsubscribe(SyntheticMarket.TICK_BY_TICK_BID_ASK, parseInt(f[1]));
+            }
+            case PLACE_ORDER -> placeOrder(f);
+            default -> { }
+        }
+    }
+
+    private void accountSummary(int reqId, String tags) throws IOException {
+        String balance = Double.toString(config.accountBalance());
+        synchronized (writer) {
+            for (String tag : tags.split(",")) {
+                if (tag.isBlank()) continue;
+                writer.begin(ACCOUNT_SUMMARY).add(1).add(reqId).add(ACCOUNT).add(tag.trim()).add(balance).add("USD").end();
+            }
+            writer.begin(ACCOUNT_SUMMARY_END).add(1).add(reqId).end();
+            writer.flush();
+        }
+    }
+
+    // The client reports scannerDataEnd itself once the single SCANNER_DATA message is decoded.
+    private void scannerData(int tickerId, int numberOfRows) throws IOException {
+        int rows = numberOfRows > 0 ? Math.min(numberOfRows, universe.size()) : universe.size();
+        synchronized (writer) {
+            writer.begin(SCANNER_DATA).add(3).add(tickerId).add(rows);
+            for (int rank = 0; rank < rows; rank++) {
+                String symbol = universe.get(rank);
+                writer.add(rank).add(0).add(symbol).add("STK").add("").add(0.0).add("").add("SMART").add("USD")
+                        .add(symbol).add("NMS").add(symbol).add("").add("").add("").add("");
+            }
+            writer.end();
+            writer.flush();
+        }
+    }
+
+    private void subscribe(int kind, int reqId, String symbol) {
+        if (market != null) {
+            market.request(kind, reqId, symbol);
+            return;
+        }
+        symbolByReqId.put(reqId, symbol);
+        requestIds(kind).put(symbol, reqId);
+    }
+
+    private void unsubscribe(int kind, int reqId) {
+        if (market != null) {
+            market.cancel(kind, reqId);
+            return;
+        }
+        String symbol = symbolByReqId.get(reqId);
+        if (symbol != null && requestIds(kind).remove(symbol, reqId)) symbolByReqId.remove(reqId);
+    }
+
+    private Map<String, Integer> requestIds(int kind) {
+        return switch (kind) {
+            case SyntheticMarket.MARKET_DATA -> mktReqIds;
+            case SyntheticMarket.DEPTH -> depthReqIds;
+            case SyntheticMarket.TICK_BY_TICK_LAST -> tradeTickReqIds;
+            case SyntheticMarket.TICK_BY_TICK_BID_ASK -> quoteTickReqIds;
+            default -> barReqIds;
+        };
+    }
+
+    private void placeOrder(String[] f) throws IOException {
+        int orderId = parseInt(f[1]);
+        String symbol = f[ORDER_SYMBOL];
+        boolean buy = "BUY".equalsIgnoreCase(f[ORDER_ACTION]);
+        long quantity = (long) parseDouble(f[ORDER_QUANTITY]);
+        boolean limit = "LMT".equalsIgnoreCase(f[ORDER_TYPE]);
+        double limitPrice = parseDouble(f[ORDER_LIMIT_PRICE]);
+        nextOrderId.accumulateAndGet(orderId + 1, Math::max);
+
+        synchronized (writer) {
+            orderStatus(orderId, "Submitted", 0, quantity, 0, 0);
+            writer.flush();
+        }
+        if (market != null) market.submitOrder(orderId, symbol, buy, quantity, limit, limitPrice);
+        else pendingFills.offer(new PendingFill(orderId, symbol, buy, quantity, limit, limitPrice,
+                System.nanoTime() + config.fillLatencyMs() * 1_000_000L));
+    }
+
+    private static int parseInt(String s) {
+        return s == null || s.isEmpty() ? 0 : Integer.parseInt(s);
+    }
+
+    private static double parseDouble(String s) {
+        return s == null || s.isEmpty() ? 0 : Double.parseDouble(s);
+    }
+
+    // ======================== FEED (feed thread) ========================
+    private void startFeed() {
+        if (feed != null) return;
+        feed = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                if (market != null) streamSynthetic();
+                else streamJournal();
+            } catch (Exception e) {
+                if (!closed) log.error("Fake TWS feed failed", e);
+            } finally {
+                close();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("Fake TWS sent client {} {} market data messages in {} s ({} msg/s).", clientId, messages,
+                    String.format("%.1f", seconds), String.format("%.0f", messages / Math.max(seconds, 1e-9)));
+        }, "fake-tws-feed-" + clientId);
+        feed.setDaemon(true);
+        feed.start();
+    }
+
+    // Simulated time follows the wall clock scaled by speed; maxEventsPerSecond caps the rate on top of that.
+    private void streamSynthetic() throws IOException {
+        long startNanos = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        double rate = speed > 0 ? speed : 1.0;
+        double maxEventsPerSecond = config.maxEventsPerSecond();
+        market.open(this, Math.max(1, config.symbols()), startMillis);
+
+        while (!closed && market.isRunning()) {
+            if (!market.advance()) {
+                flush();
+                LockSupport.parkNanos(IDLE_NANOS);
+                market.idleUntil(startMillis + (long) ((System.nanoTime() - startNanos) / 1e6 * rate));
+                continue;
+            }
+            long due = speed > 0 ? startNanos + (long) ((market.currentMillis() - startMillis) * 1e6 / speed) : 0;
+            if (maxEventsPerSecond > 0) {
+                due = Math.max(due, startNanos + (long) (market.getEvents() * 1e9 / maxEventsPerSecond));
+            }
+            waitUntil(due);
+            market.emit();
+        }
+    }
+
+    private void streamJournal() throws IOException {
+        Map<Integer, String> recordedSymbols = new HashMap<>();
+        Map<String, double[]> lastPrices = new HashMap<>();
+        int pendingSymbol = -1;
+        int pendingField = 0;
+        double pendingPrice = 0;
+
+        try (JournalReader reader = JournalReader.open(journalDirectory)) {
+            long startNanos = System.nanoTime();
+            long firstTimestamp = Long.MIN_VALUE;
+            while (!closed && reader.next()) {
+                int type = reader.type();
+                if (type == Journal.SYMBOL_ADDED) {
+                    recordedSymbols.put(reader.symbolId(), reader.text());
+                    continue;
+                }
+                if (type != Journal.TICK_PRICE && type != Journal.TICK_SIZE && type != Journal.DEPTH
+                        && type != Journal.REALTIME_BAR && type != Journal.TICK_BY_TICK_LAST
+                        && type != Journal.TICK_BY_TICK_BID_ASK) continue;
+
+                long timestamp = reader.timestamp();
+                if (firstTimestamp == Long.MIN_VALUE) firstTimestamp = timestamp;
+                if (speed > 0) waitUntil(startNanos + (long) ((timestamp - firstTimestamp) / speed));
+                deliverFills(lastPrices);
+
+                String symbol = recordedSymbols.get(reader.symbolId());
+                if (symbol == null) continue;
+                // The client splits a TICK_PRICE with a size into tickPrice + tickSize, and the journal holds both halves; join them back up.
+                if (type == Journal.TICK_SIZE && pendingSymbol == reader.symbolId()
+                        && reader.intA() == sizeField(pendingField)) {
+                    tickPrice(symbol, pendingField, pendingPrice, reader.longC());
+                    pendingSymbol = -1;
+                    continue;
+                }
+                if (pendingSymbol >= 0) {
+                    String pending = recordedSymbols.get(pendingSymbol);
+                    if (pending != null) tickPrice(pending, pendingField, pendingPrice, 0);
+                    pendingSymbol = -1;
+                }
+                switch (type) {
+                    case Journal.TICK_PRICE -> {
+                        if (reader.intA() == TickType.LAST.index()) {
+                            lastPrices.computeIfAbsent(symbol, s -> new double[1])[0] = reader.doubleA();
+                        }
+                        if (sizeField(reader.intA()) >= 0) {
+                            pendingSymbol = reader.symbolId();
+                            pendingField = reader.intA();
+                            pendingPrice = reader.doubleA();
+                        } else {
+                            tickPrice(symbol, reader.intA(), reader.doubleA(), 0);
+                        }
+                    }
+                    case Journal.TICK_SIZE -> tickSize(symbol, reader.intA(), reader.longC());
+                    case Journal.DEPTH -> {
+                        Integer reqId = depthReqIds.get(symbol);
+                        if (reqId != null) depth(reqId, reader.intA(), reader.intB(), reader.intC(), reader.doubleA(), reader.longC());
+                    }
+                    case Journal.REALTIME_BAR -> {
+                        Integer reqId = barReqIds.get(symbol);
+                        if (reqId != null) realtimeBar(reqId, reader.longA(), reader.doubleA(), reader.doubleB(),
+                                reader.doubleC(), reader.doubleD(), reader.longC(), 0);
+                    }
+                    case Journal.TICK_BY_TICK_LAST -> {
+                        lastPrices.computeIfAbsent(symbol, s -> new double[1])[0] = reader.doubleA();
+                        Integer reqId = tradeTickReqIds.get(symbol);
+                        if (reqId != null) tradeTick(reqId, reader.longA(), reader.doubleA(), reader.longC());
+                    }
+                    case Journal.TICK_BY_TICK_BID_ASK -> {
+                        Integer reqId = quoteTickReqIds.get(symbol);
+                        if (reqId != null) quoteTick(reqId, reader.longA(), reader.doubleA(), reader.doubleB(),
+                                reader.longB(), reader.longC());
+                    }
+                    default -> { }
+                }
+            }
+        }
+        flush();
+        log.info("Journal exhausted; fake TWS keeps filling orders for client {}.", clientId);
+        while (!closed) {
+            deliverFills(lastPrices);
+            flush();
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    // Mirrors the client's pairing of price and size tick types: BID/ASK/LAST and their delayed variants.
+    private static int sizeField(int priceField) {
+        return switch (priceField) {
+            case 1 -> 0;
+            case 2 -> 3;
+            case 4 -> 5;
+            case 66 -> 69;
+            case 67 -> 70;
+            case 68 -> 71;
+            default -> -1;
+        };
+    }
+
+    private void tickPrice(String symbol, int field, double price, long size) {
+        Integer reqId = mktReqIds.get(symbol);
+        if (reqId == null) return;
+        synchronized (writer) {
+            try {
+                writer.begin(TICK_PRICE).add(6).add(reqId).add(field).add(price).add(size).add(0).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    private void tickSize(String symbol, int field, long size) {
+        Integer reqId = mktReqIds.get(symbol);
+        if (reqId == null) return;
+        synchronized (writer) {
+            try {
+                writer.begin(TICK_SIZE).add(6).add(reqId).add(field).add(size).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    private void deliverFills(Map<String, double[]> lastPrices) {
+        PendingFill p;
+        long now = System.nanoTime();
+        while ((p = pendingFills.peek()) != null && p.dueNanos() <= now) {
+            pendingFills.poll();
+            double[] last = lastPrices.get(p.symbol());
+            double price = p.limit() || last == null ? p.limitPrice() : last[0];
+            fill(p.orderId(), p.symbol(), p.buy(), p.quantity(), price);
+        }
+    }
+
+    private void waitUntil(long dueNanos) throws IOException {
+        long wait = dueNanos - System.nanoTime();
+        if (wait < MIN_PARK_NANOS) return;
+        flush();
+        LockSupport.parkNanos(wait);
+    }
+
+    private void flush() throws IOException {
+        synchronized (writer) {
+            writer.flush();
+        }
+    }
+
+    // ======================== MARKET SINK (feed thread) ========================
+    @Override
+    public void trade(int tickerId, double price, long size) {
+        synchronized (writer) {
+            try {
+                writer.begin(TICK_PRICE).add(6).add(tickerId).add(TickType.LAST.index()).add(price).add(size).add(0).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    @Override
+    public void quote(int tickerId, boolean bid, double price, long size) {
+        synchronized (writer) {
+            try {
+                writer.begin(TICK_PRICE).add(6).add(tickerId).add((bid ? TickType.BID : TickType.ASK).index())
+                        .add(price).add(size).add(0).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    // AllLast (type 2): price, size, attribute mask, exchange, special conditions; no version field.
+    @Override
+    public void tradeTick(int reqId, long time, double price, long size) {
+        synchronized (writer) {
+            try {
+                writer.begin(TICK_BY_TICK).add(reqId).add(2).add(time).add(price).add(size).add(0).add("").add("").end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    // BidAsk (type 3): bid, ask, bid size, ask size, attribute mask.
+    @Override
+    public void quoteTick(int reqId, long time, double bid, double ask, long bidSize, long askSize) {
+        synchronized (writer) {
+            try {
+                writer.begin(TICK_BY_TICK).add(reqId).add(3).add(time).add(bid).add(ask).add(bidSize).add(askSize)
+                        .add(0).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    @Override
+    public void depth(int tickerId, int position, int side, int operation, double price, long size) {
+        synchronized (writer) {
+            try {
+                writer.begin(MARKET_DEPTH_L2).add(1).add(tickerId).add(position).add("").add(operation).add(side)
+                        .add(price).add(size).add(true).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    @Override
+    public void realtimeBar(int reqId, long time, double open, double high, double low, double close,
+                            long volume, int count) {
+        synchronized (writer) {
+            try {
+                writer.begin(REAL_TIME_BARS).add(3).add(reqId).add(time).add(open).add(high).add(low).add(close)
+                        .add(volume).add(close).add(count).end();
+                messages++;
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    @Override
+    public void fill(int orderId, String symbol, boolean buy, long quantity, double price) {
+        synchronized (writer) {
+            try {
+                String execId = String.format("%08x.%d", orderId, ++executions);
+                writer.begin(EXECUTION_DATA).add(-1).add(orderId).add(0).add(symbol).add("STK").add("").add(0.0).add("")
+                        .add("").add("SMART").add("USD").add(symbol).add(symbol).add(execId)
+                        .add(EXEC_TIME.format(ZonedDateTime.now())).add(ACCOUNT).add("SMART").add(buy ? "BOT" : "SLD")
+                        .add(quantity).add(price).add(orderId + 1_000_000L).add(clientId).add(0).add(quantity).add(price)
+                        .add("").add("").add("").add("").add(0).end();
+                orderStatus(orderId, "Filled", quantity, 0, price, price);
+                writer.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    private void orderStatus(int orderId, String status, long filled, long remaining, double avgFillPrice,
+                             double lastFillPrice) throws IOException {
+        writer.begin(ORDER_STATUS).add(orderId).add(status).add(filled).add(remaining).add(avgFillPrice)
+                .add(orderId + 1_000_000L).add(0).add(lastFillPrice).add(clientId).add("").add(0.0).end();
+    }
+}
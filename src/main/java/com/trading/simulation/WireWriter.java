@@ -0,0 +1,85 @@
+package com.trading.simulation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Frames TWS API messages: a 4-byte big-endian length followed by null-terminated text fields. Not thread-safe.
+final class WireWriter {
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[512];
+    private int length;
+
+    WireWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    WireWriter begin(int messageId) {
+        length = 4;
+        return add(messageId);
+    }
+
+    WireWriter add(long value) {
+        ensure(21);
+        if (value == 0) {
+            buffer[length++] = '0';
+        } else {
+            if (value < 0) {
+                buffer[length++] = '-';
+                value = -value;
+            }
+            int start = length;
+            while (value > 0) {
+                buffer[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte b = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = b;
+            }
+        }
+        buffer[length++] = 0;
+        return this;
+    }
+
+    WireWriter add(double value) {
+        return add(Double.toString(value));
+    }
+
+    WireWriter add(boolean value) {
+        return add(value ? 1 : 0);
+    }
+
+    WireWriter add(String value) {
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(bytes.length + 1);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        } else {
+            ensure(1);
+        }
+        buffer[length++] = 0;
+        return this;
+    }
+
+    void end() throws IOException {
+        int size = length - 4;
+        buffer[0] = (byte) (size >>> 24);
+        buffer[1] = (byte) (size >>> 16);
+        buffer[2] = (byte) (size >>> 8);
+        buffer[3] = (byte) size;
+        out.write(buffer, 0, length);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+    }
+}
@@ -0,0 +1,138 @@
+package com.trading.store;
+
+import com.trading.datafeed.BarType;
+import com.trading.datafeed.Timeframe;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One symbol's bars for one timeframe and session, as columns in a memory-mapped file. Little-endian layout:
+//  0 int magic   4 int version   8 int timeframe ordinal   12 int capacity   16 long count
+//  64 start[capacity]  end[capacity]  open[capacity]  high  low  close  volume[capacity]
+// One writer appends under the symbol lock and publishes the count last; rows below the count never change.
+final class BarFile {
+
+    static final int MAGIC = 0x42415253;
+    static final int VERSION = 1;
+    static final String FILE_SUFFIX = ".bars";
+
+    private static final int HEADER = 64;
+    private static final int COUNT = 16;
+    private static final int COLUMNS = 7;
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Timeframe timeframe;
+    private final int capacity;
+    private boolean full;
+
+    private BarFile(Path path, FileChannel channel, MappedByteBuffer buffer, Timeframe timeframe, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.timeframe = timeframe;
+        this.capacity = capacity;
+    }
+
+    // Reopens an existing file as is, so bars from before a restart are kept; a new file is sized up front.
+    static BarFile open(Path path, Timeframe timeframe, int capacity) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean fresh = channel.size() == 0;
+            if (!fresh) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != timeframe.ordinal())
+                    throw new IOException("Not a " + timeframe + " bar file: " + path);
+                capacity = header.getInt(12);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) COLUMNS * capacity * Long.BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (fresh) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, timeframe.ordinal());
+                buffer.putInt(12, capacity);
+            }
+            return new BarFile(path, channel, buffer, timeframe, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() { return path; }
+    Timeframe timeframe() { return timeframe; }
+    int capacity() { return capacity; }
+
+    int count() { return (int) (long) LONG.getAcquire(buffer, COUNT); }
+
+    // False once the file is full, or for a bar that would break start-time order: time bars must move forward,
+    // activity bars may share a second.
+    boolean append(long start, long end, double o, double h, double l, double c, long v) {
+        int n = (int) (long) LONG.get(buffer, COUNT);
+        if (n == capacity) return false;
+        if (n > 0) {
+            long last = startTime(n - 1);
+            if (start < last || (start == last && timeframe.getType() == BarType.TIME)) return false;
+        }
+        buffer.putLong(offset(0, n), start);
+        buffer.putLong(offset(1, n), end);
+        buffer.putDouble(offset(2, n), o);
+        buffer.putDouble(offset(3, n), h);
+        buffer.putDouble(offset(4, n), l);
+        buffer.putDouble(offset(5, n), c);
+        buffer.putLong(offset(6, n), v);
+        LONG.setRelease(buffer, COUNT, (long) n + 1);
+        return true;
+    }
+
+    // Set the first time an append finds the file full, so the caller warns once.
+    boolean markFull() {
+        if (full) return false;
+        full = true;
+        return true;
+    }
+
+    long startTime(int index) { return buffer.getLong(offset(0, index)); }
+    long endTime(int index) { return buffer.getLong(offset(1, index)); }
+    double open(int index) { return buffer.getDouble(offset(2, index)); }
+    double high(int index) { return buffer.getDouble(offset(3, index)); }
+    double low(int index) { return buffer.getDouble(offset(4, index)); }
+    double close(int index) { return buffer.getDouble(offset(5, index)); }
+    long volume(int index) { return buffer.getLong(offset(6, index)); }
+
+    // First index in [0, n) whose start time is at or after time.
+    int lowerBound(long time, int n) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startTime(mid) < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    // The mapping outlives the channel, so ranges handed out earlier stay readable.
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private int offset(int column, int index) {
+        return HEADER + (column * capacity + index) * Long.BYTES;
+    }
+}
@@ -0,0 +1,44 @@
+package com.trading.store;
+
+import com.trading.datafeed.Timeframe;
+
+// Zero-copy window onto consecutive bars in a BarFile, oldest first. It reads the mapped file directly and holds the
+// bars that existed when it was taken, so it stays consistent while more bars are appended.
+public final class BarRange {
+
+    private static final BarRange EMPTY = new BarRange(null, null, 0, 0);
+
+    private final BarFile file;
+    private final Timeframe timeframe;
+    private final int from;
+    private final int size;
+
+    BarRange(BarFile file, Timeframe timeframe, int from, int size) {
+        this.file = file;
+        this.timeframe = timeframe;
+        this.from = from;
+        this.size = size;
+    }
+
+    static BarRange empty() {
+        return EMPTY;
+    }
+
+    public Timeframe timeframe() { return timeframe; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    // i = 0 is the oldest bar in the range; callers keep i < size().
+    public long startTime(int i) { return file.startTime(index(i)); }
+    public long endTime(int i) { return file.endTime(index(i)); }
+    public double open(int i) { return file.open(index(i)); }
+    public double high(int i) { return file.high(index(i)); }
+    public double low(int i) { return file.low(index(i)); }
+    public double close(int i) { return file.close(index(i)); }
+    public long volume(int i) { return file.volume(index(i)); }
+
+    private int index(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Bar " + i + " outside range of " + size);
+        return from + i;
+    }
+}
@@ -0,0 +1,106 @@
+package com.trading.store;
+
+import com.trading.datafeed.Timeframe;
+import com.trading.time.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Closed bars persisted per session, symbol and timeframe under directory/yyyyMMdd/SYMBOL/TIMEFRAME.bars.
+// Time bar files hold a whole day; activity bar files hold activityBarsPerFile bars. Files are bound to a symbol ID
+// while it is subscribed, appended by BarManager under the symbol lock, and queried from any thread.
+public class BarStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BarStore.class);
+
+    private static final DateTimeFormatter SESSION_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int MAX_BARS_PER_FILE = 1 << 24;
+
+    private final Path directory;
+    private final int activityBarsPerFile;
+    private final Clock clock;
+    // Indexed by Timeframe.slot(symbolId)
+    private final AtomicReferenceArray<BarFile> files;
+
+    public BarStore(Path directory, int activityBarsPerFile, Clock clock, int symbolCapacity) {
+        if (activityBarsPerFile <= 0 || activityBarsPerFile > MAX_BARS_PER_FILE)
+            throw new IllegalArgumentException("activityBarsPerFile must be between 1 and " + MAX_BARS_PER_FILE + ": " + activityBarsPerFile);
+        this.directory = directory;
+        this.activityBarsPerFile = activityBarsPerFile;
+        this.clock = clock;
+        this.files = new AtomicReferenceArray<>(Timeframe.slots(symbolCapacity));
+    }
+
+    // Maps the symbol's files for the current session and the given timeframes, so bars written before a restart are
+    // queryable again; the others go unpersisted. A file that cannot be opened is logged and treated the same way.
+    public void open(int symbolId, String symbol, Timeframe[] timeframes) {
+        close(symbolId);
+        LocalDate day = Instant.ofEpochMilli(clock.currentTimeMillis()).atZone(clock.zone()).toLocalDate();
+        Path session = directory.resolve(SESSION_FORMAT.format(day)).resolve(symbol);
+        for (Timeframe tf : timeframes) {
+            Path path = session.resolve(tf.name() + BarFile.FILE_SUFFIX);
+            try {
+                BarFile file = BarFile.open(path, tf, capacity(tf));
+                files.set(tf.slot(symbolId), file);
+                if (file.count() > 0) log.info("Reopened {} stored {} bars for {}", file.count(), tf, symbol);
+            } catch (IOException e) {
+                log.error("Failed to open bar file {}", path, e);
+            }
+        }
+    }
+
+    public void close(int symbolId) {
+        for (Timeframe tf : Timeframe.getBarTimeframes()) closeFile(files.getAndSet(tf.slot(symbolId), null));
+    }
+
+    public void append(int symbolId, Timeframe tf, long start, long end, double o, double h, double l, double c, long v) {
+        BarFile file = files.get(tf.slot(symbolId));
+        if (file == null || file.append(start, end, o, h, l, c, v)) return;
+        if (file.count() == file.capacity() && file.markFull())
+            log.warn("Bar file {} is full at {} bars; later {} bars are not persisted", file.path(), file.capacity(), tf);
+    }
+
+    // ======================== QUERIES (any thread) ========================
+    public BarRange last(int symbolId, Timeframe tf, int n) {
+        BarFile file = files.get(tf.slot(symbolId));
+        if (file == null || n <= 0) return BarRange.empty();
+        int count = file.count();
+        int size = Math.min(n, count);
+        return new BarRange(file, tf, count - size, size);
+    }
+
+    // Bars starting at or after fromSeconds and before toSeconds.
+    public BarRange between(int symbolId, Timeframe tf, long fromSeconds, long toSeconds) {
+        BarFile file = files.get(tf.slot(symbolId));
+        if (file == null || toSeconds <= fromSeconds) return BarRange.empty();
+        int count = file.count();
+        int from = file.lowerBound(fromSeconds, count);
+        int to = file.lowerBound(toSeconds, count);
+        return new BarRange(file, tf, from, to - from);
+    }
+
+    @Override
+    public void close() {
+        for (int slot = 0; slot < files.length(); slot++) closeFile(files.getAndSet(slot, null));
+    }
+
+    private int capacity(Timeframe tf) {
+        return tf.getSeconds() > 0 ? 86_400 / tf.getSeconds() : activityBarsPerFile;
+    }
+
+    private void closeFile(BarFile file) {
+        if (file == null) return;
+        try {
+            file.force();
+            file.close();
+        } catch (IOException e) {
+            log.error("Failed to close bar file {}", file.path(), e);
+        }
+    }
+}
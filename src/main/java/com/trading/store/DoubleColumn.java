@@ -0,0 +1,38 @@
+package com.trading.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class DoubleColumn {
+
+    private static final VarHandle VH = MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int rows;
+
+    DoubleColumn(ByteBuffer buffer, int rows) {
+        this.buffer = buffer;
+        this.rows = rows;
+    }
+
+    public int rows() { return rows; }
+
+    public double get(int row) { return (double) VH.get(buffer, row << 3); }
+    public void set(int row, double value) { VH.set(buffer, row << 3, value); }
+
+    public double getAcquire(int row) { return (double) VH.getAcquire(buffer, row << 3); }
+    public void setRelease(int row, double value) { VH.setRelease(buffer, row << 3, value); }
+
+    public double getOpaque(int row) { return (double) VH.getOpaque(buffer, row << 3); }
+    public void setOpaque(int row, double value) { VH.setOpaque(buffer, row << 3, value); }
+
+    public boolean compareAndSet(int row, double expected, double value) { return VH.compareAndSet(buffer, row << 3, expected, value); }
+
+    public void fill(double value) { fill(0, rows, value); }
+
+    public void fill(int from, int to, double value) {
+        for (int i = from; i < to; i++) VH.set(buffer, i << 3, value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.trading.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class IntColumn {
+
+    private static final VarHandle VH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int rows;
+
+    IntColumn(ByteBuffer buffer, int rows) {
+        this.buffer = buffer;
+        this.rows = rows;
+    }
+
+    public int rows() { return rows; }
+
+    public int get(int row) { return (int) VH.get(buffer, row << 2); }
+    public void set(int row, int value) { VH.set(buffer, row << 2, value); }
+
+    public int getAcquire(int row) { return (int) VH.getAcquire(buffer, row << 2); }
+    public void setRelease(int row, int value) { VH.setRelease(buffer, row << 2, value); }
+
+    public int getOpaque(int row) { return (int) VH.getOpaque(buffer, row << 2); }
+    public void setOpaque(int row, int value) { VH.setOpaque(buffer, row << 2, value); }
+
+    public boolean compareAndSet(int row, int expected, int value) { return VH.compareAndSet(buffer, row << 2, expected, value); }
+
+    public void fill(int value) { fill(0, rows, value); }
+
+    public void fill(int from, int to, int value) {
+        for (int i = from; i < to; i++) VH.set(buffer, i << 2, value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.trading.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class LongColumn {
+
+    private static final VarHandle VH = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int rows;
+
+    LongColumn(ByteBuffer buffer, int rows) {
+        this.buffer = buffer;
+        this.rows = rows;
+    }
+
+    public int rows() { return rows; }
+
+    public long get(int row) { return (long) VH.get(buffer, row << 3); }
+    public void set(int row, long value) { VH.set(buffer, row << 3, value); }
+
+    public long getAcquire(int row) { return (long) VH.getAcquire(buffer, row << 3); }
+    public void setRelease(int row, long value) { VH.setRelease(buffer, row << 3, value); }
+
+    public long getOpaque(int row) { return (long) VH.getOpaque(buffer, row << 3); }
+    public void setOpaque(int row, long value) { VH.setOpaque(buffer, row << 3, value); }
+
+    public boolean compareAndSet(int row, long expected, long value) { return VH.compareAndSet(buffer, row << 3, expected, value); }
+
+    public void fill(long value) { fill(0, rows, value); }
+
+    public void fill(int from, int to, long value) {
+        for (int i = from; i < to; i++) VH.set(buffer, i << 3, value);
+    }
+}
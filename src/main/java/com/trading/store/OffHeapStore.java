@@ -0,0 +1,62 @@
+package com.trading.store;
+
+import com.trading.datafeed.Timeframe;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Struct-of-arrays state kept outside the Java heap: one direct buffer per field, indexed by symbol ID
+// (or Timeframe.slot(symbolId) for per-timeframe state). Sized once at startup, so memory per symbol is fixed.
+public class OffHeapStore {
+
+    public record ColumnInfo(String name, long bytes) {}
+
+    private final int symbolCapacity;
+    private final List<ColumnInfo> columns = Collections.synchronizedList(new ArrayList<>());
+
+    public OffHeapStore(int symbolCapacity) {
+        this.symbolCapacity = symbolCapacity;
+    }
+
+    public int symbolCapacity() { return symbolCapacity; }
+    public int timeframeSlots() { return Timeframe.slots(symbolCapacity); }
+
+    public DoubleColumn doubles(String name, int rows, double initial) {
+        DoubleColumn column = new DoubleColumn(allocate(name, rows, Double.BYTES), rows);
+        if (initial != 0.0) column.fill(initial);
+        return column;
+    }
+
+    public LongColumn longs(String name, int rows, long initial) {
+        LongColumn column = new LongColumn(allocate(name, rows, Long.BYTES), rows);
+        if (initial != 0L) column.fill(initial);
+        return column;
+    }
+
+    public IntColumn ints(String name, int rows, int initial) {
+        IntColumn column = new IntColumn(allocate(name, rows, Integer.BYTES), rows);
+        if (initial != 0) column.fill(initial);
+        return column;
+    }
+
+    public List<ColumnInfo> columns() {
+        return List.copyOf(columns);
+    }
+
+    public long bytesAllocated() {
+        long total = 0;
+        for (ColumnInfo c : columns()) total += c.bytes();
+        return total;
+    }
+
+    // Direct buffers start zeroed; aligned so acquire/release and CAS accesses are legal on every element.
+    private ByteBuffer allocate(String name, int rows, int width) {
+        long bytes = (long) rows * width;
+        if (bytes > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Column " + name + " too large: " + bytes + " bytes");
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes + 8).alignedSlice(8);
+        columns.add(new ColumnInfo(name, bytes));
+        return buffer;
+    }
+}
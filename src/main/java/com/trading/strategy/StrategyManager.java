@@ -57,7 +57,8 @@ public class StrategyManager {
     public void evaluateMarketForSymbol(String symbol, StrategyType strategy) {
         lockManager.lock(symbol);
         try {
-            SymbolData symbolData = ib.getSymbolData().computeIfAbsent(symbol, s -> new SymbolData());
+            SymbolData symbolData = ib.getSymbolData().get(symbol);
+            if (symbolData == null) return;
             double tickPrice = symbolData.getLastPrice();
             if (tickPrice <= 0) return;
 
@@ -78,7 +79,9 @@ public class StrategyManager {
 
             if (buyConfirmed && currentPos == 0 && !hasPendingBuy) {
                 log.info("symbol: {}, buyConfirmed: {}, currentPos: {}, hasPendingBuy: {}", symbol, buyConfirmed, currentPos, hasPendingBuy);
-                int qty = calculateBuyQuantity(tickPrice, strategy);
+                // Size at the price a buy pays: the ask once the symbol is quoted
+                double ask = symbolData.getAsk();
+                int qty = calculateBuyQuantity(ask > 0 ? ask : tickPrice, strategy);
                 if (qty > 0) tradeExecutor.placeOrder(symbol, qty, "BUY");
             }
 
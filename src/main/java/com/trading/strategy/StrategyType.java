@@ -36,15 +36,25 @@ public enum StrategyType {
     ));
 
     private final Map<Timeframe, Set<Indicator>> timeframeIndicators;
+    private final int barTimeframeMask;
 
     StrategyType(Map<Timeframe, Set<Indicator>> timeframeIndicators) {
         this.timeframeIndicators = timeframeIndicators;
+        int mask = 0;
+        for (Timeframe tf : timeframeIndicators.keySet()) {
+            if (tf != TICK) mask |= tf.mask();
+        }
+        this.barTimeframeMask = mask;
     }
 
     public Map<Timeframe, Set<Indicator>> getTimeframeIndicators() {
         return timeframeIndicators;
     }
 
+    public int getBarTimeframeMask() {
+        return barTimeframeMask;
+    }
+
     public Set<Indicator> getIndicatorsFor(Timeframe timeframe) {
         return timeframeIndicators.getOrDefault(timeframe, Collections.emptySet());
     }
@@ -0,0 +1,16 @@
+package com.trading.time;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+public interface Clock {
+
+    long currentTimeMillis();
+
+    ZoneId zone();
+
+    default LocalTime localTime() {
+        return Instant.ofEpochMilli(currentTimeMillis()).atZone(zone()).toLocalTime();
+    }
+}
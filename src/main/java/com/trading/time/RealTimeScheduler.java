@@ -0,0 +1,39 @@
+package com.trading.time;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class RealTimeScheduler implements Scheduler {
+
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+
+    public RealTimeScheduler(Clock clock, int threads) {
+        this.clock = clock;
+        this.executor = Executors.newScheduledThreadPool(threads);
+    }
+
+    @Override
+    public Clock clock() {
+        return clock;
+    }
+
+    @Override
+    public void scheduleAtFixedRate(Runnable task, long initialDelayMs, long periodMs) {
+        executor.scheduleAtFixedRate(task, initialDelayMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.trading.time;
+
+public interface Scheduler {
+
+    Clock clock();
+
+    void scheduleAtFixedRate(Runnable task, long initialDelayMs, long periodMs);
+
+    void shutdown();
+}
@@ -0,0 +1,30 @@
+package com.trading.time;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+public final class SystemClock implements Clock {
+
+    public static final SystemClock INSTANCE = new SystemClock(ZoneId.systemDefault());
+
+    private final ZoneId zone;
+
+    public SystemClock(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public ZoneId zone() {
+        return zone;
+    }
+
+    @Override
+    public LocalTime localTime() {
+        return LocalTime.now(zone);
+    }
+}
@@ -0,0 +1,33 @@
+package com.trading.time;
+
+import java.time.ZoneId;
+
+// Event-time clock: only moves when advanced, and never backwards.
+public final class VirtualClock implements Clock {
+
+    private final ZoneId zone;
+    private volatile long nowMillis = Long.MIN_VALUE;
+
+    public VirtualClock(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public boolean isStarted() {
+        return nowMillis != Long.MIN_VALUE;
+    }
+
+    public void advanceTo(long millis) {
+        if (millis > nowMillis) nowMillis = millis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        long now = nowMillis;
+        return now == Long.MIN_VALUE ? 0L : now;
+    }
+
+    @Override
+    public ZoneId zone() {
+        return zone;
+    }
+}
@@ -0,0 +1,94 @@
+package com.trading.time;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Runs fixed-rate tasks on the thread that advances event time, so replays and backtests are not paced by the wall clock.
+public class VirtualTimeScheduler implements Scheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualTimeScheduler.class);
+
+    private static final class Task {
+        final Runnable runnable;
+        final long periodMs;
+        long dueMillis;
+        final long sequence;
+
+        Task(Runnable runnable, long dueMillis, long periodMs, long sequence) {
+            this.runnable = runnable;
+            this.dueMillis = dueMillis;
+            this.periodMs = periodMs;
+            this.sequence = sequence;
+        }
+    }
+
+    private final VirtualClock clock;
+    private final PriorityQueue<Task> queue = new PriorityQueue<>((a, b) -> a.dueMillis != b.dueMillis
+            ? Long.compare(a.dueMillis, b.dueMillis) : Long.compare(a.sequence, b.sequence));
+    // Tasks scheduled before the first event are anchored to that event's time.
+    private final List<Task> unanchored = new ArrayList<>();
+    private long nextSequence = 0;
+    private boolean shutdown;
+
+    public VirtualTimeScheduler(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public VirtualClock clock() {
+        return clock;
+    }
+
+    @Override
+    public synchronized void scheduleAtFixedRate(Runnable task, long initialDelayMs, long periodMs) {
+        if (periodMs <= 0) throw new IllegalArgumentException("periodMs must be positive");
+        if (shutdown) return;
+        if (clock.isStarted()) {
+            queue.add(new Task(task, clock.currentTimeMillis() + initialDelayMs, periodMs, nextSequence++));
+        } else {
+            unanchored.add(new Task(task, initialDelayMs, periodMs, nextSequence++));
+        }
+    }
+
+    public synchronized long nextDeadline() {
+        if (!clock.isStarted() && !unanchored.isEmpty()) return Long.MIN_VALUE;
+        Task next = queue.peek();
+        return next == null ? Long.MAX_VALUE : next.dueMillis;
+    }
+
+    // Fires every task due up to and including the given time, each with the clock set to its own deadline.
+    public synchronized void advanceTo(long millis) {
+        if (!clock.isStarted()) {
+            clock.advanceTo(millis);
+            for (Task t : unanchored) {
+                t.dueMillis += millis;
+                queue.add(t);
+            }
+            unanchored.clear();
+        }
+        Task next;
+        while (!shutdown && (next = queue.peek()) != null && next.dueMillis <= millis) {
+            queue.poll();
+            clock.advanceTo(next.dueMillis);
+            try {
+                next.runnable.run();
+            } catch (Throwable t) {
+                log.error("Scheduled task failed at {}", next.dueMillis, t);
+            }
+            next.dueMillis += next.periodMs;
+            queue.add(next);
+        }
+        clock.advanceTo(millis);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        queue.clear();
+        unanchored.clear();
+    }
+}